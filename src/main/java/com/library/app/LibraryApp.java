@@ -1,5 +1,14 @@
 package main.java.com.library.app;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.format.DateTimeFormatter;
 import java.util.InputMismatchException;
 import java.util.List;
@@ -31,6 +40,18 @@ public class LibraryApp {
 
 	// --- Seed Data Setup ---
 	private void seedData() {
+		Patron[] seeded = loadSeedData(libraryService);
+		Patron p1 = seeded[0], p2 = seeded[1], p3 = seeded[2];
+
+		System.out.println("\n--- Seed Data Loaded ---");
+		System.out.printf("Patron IDs: %d (Alice), %d (Bob), %d (Charlie)\n", p1.getId(), p2.getId(), p3.getId());
+		System.out.println("Book ISBNs: 978-0201633610, 978-0618260234, 978-0132350884");
+		System.out.println("One copy of 'Design Patterns' is currently borrowed by Alice.");
+		System.out.println("--------------------------\n");
+	}
+
+	// Loads the sample catalog and patrons without any console output; returns the seeded patrons
+	static Patron[] loadSeedData(LibraryService libraryService) {
 		// Books
 		Book b1 = new Book("Design Patterns", "Erich Gamma", "978-0201633610", 1994);
 		Book b2 = new Book("The Lord of the Rings", "J.R.R. Tolkien", "978-0618260234", 1954);
@@ -52,15 +73,17 @@ public class LibraryApp {
 		// Initial Checkout for testing (p1 borrows Design Patterns)
 		libraryService.checkoutBook(b1.getIsbn(), p1.getId());
 
-		System.out.println("\n--- Seed Data Loaded ---");
-		System.out.printf("Patron IDs: %d (Alice), %d (Bob), %d (Charlie)\n", p1.getId(), p2.getId(), p3.getId());
-		System.out.println("Book ISBNs: " + b1.getIsbn() + ", " + b2.getIsbn() + ", " + b3.getIsbn());
-		System.out.println("One copy of 'Design Patterns' is currently borrowed by Alice.");
-		System.out.println("--------------------------\n");
+		return new Patron[] { p1, p2, p3 };
 	}
 
 	public void start() {
-		seedData();
+		start(true);
+	}
+
+	public void start(boolean seed) {
+		if (seed) {
+			seedData();
+		}
 		int choice;
 		do {
 			displayMenu();
@@ -337,7 +360,7 @@ public class LibraryApp {
 		System.out.println("\n--- Currently Borrowed Books ---");
 		// Using Java 8 forEach with lambda
 		borrowed.forEach(t -> System.out.printf("Item: %s | Patron: %s | Due Date: %s\n", t.getBook().getTitle(),
-				t.getPatron().getName(), t.getCheckoutDate().plusDays(14).format(DATE_FORMATTER)));
+				t.getPatron().getName(), t.getDueDate().format(DATE_FORMATTER)));
 	}
 
 	private void listBookCopyStatus() {
@@ -401,7 +424,40 @@ public class LibraryApp {
 		System.setProperty("java.util.logging.SimpleFormatter.format", "[%1$tF %1$tT] [%4$-7s] %5$s %n");
 
 		LibraryService service = new LibraryServiceImpl();
-		LibraryApp app = new LibraryApp(service);
-		app.start();
+
+		// Headless mode: --script <file|-> [--seed]
+		String script = null;
+		boolean seed = false;
+		for (int i = 0; i < args.length; i++) {
+			if ("--script".equals(args[i]) && i + 1 < args.length) {
+				script = args[++i];
+			} else if ("--seed".equals(args[i])) {
+				seed = true;
+			}
+		}
+
+		if (script == null) {
+			LibraryApp app = new LibraryApp(service);
+			app.start();
+			return;
+		}
+
+		// Keep stdout machine-readable: only warnings and errors are logged (to stderr)
+		Logger.getLogger("").setLevel(Level.WARNING);
+		if (seed) {
+			loadSeedData(service);
+		}
+		int errors;
+		try (BufferedReader in = "-".equals(script)
+				? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+				: Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8);
+				Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)) {
+			errors = new LibraryScriptRunner(service, out).run(in);
+		} catch (IOException e) {
+			LOGGER.log(Level.SEVERE, "Failed to run script: " + script, e);
+			System.exit(2);
+			return;
+		}
+		System.exit(errors > 0 ? 1 : 0);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,280 @@
+package main.java.com.library.app;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import main.java.com.library.model.Book;
+import main.java.com.library.model.BookItem;
+import main.java.com.library.model.Patron;
+import main.java.com.library.model.Transaction;
+import main.java.com.library.service.ExportFormat;
+import main.java.com.library.service.LibraryExporter;
+import main.java.com.library.service.LibraryService;
+import main.java.com.library.service.LoanResult;
+
+// Headless command interpreter for LibraryApp (scripts and shell pipelines).
+// Reads one command per line, writes one tab-separated status line per command:
+//   OK <TAB> command <TAB> field... | ERR <TAB> command <TAB> reason
+// OK fields per command: add-book/remove-book isbn; add-patron/update-patron patronId;
+//   checkout isbn, patronId, itemId, dueDate; return isbn, patronId, itemId, fine; copies isbn, total, available;
+//   export rowCount. Query commands emit "OK <TAB> command <TAB> <rowCount>" followed by that many row lines.
+// Blank lines and lines starting with '#' are ignored. Arguments containing spaces may be double-quoted.
+public class LibraryScriptRunner {
+	private static final char SEP = '\t';
+
+	private final LibraryService libraryService;
+	private final Writer out;
+	private int errorCount;
+
+	public LibraryScriptRunner(LibraryService libraryService, Writer out) {
+		this.libraryService = libraryService;
+		this.out = out;
+	}
+
+	// Processes every line of the reader; returns the number of commands that failed
+	public int run(BufferedReader in) throws IOException {
+		String line;
+		while ((line = in.readLine()) != null) {
+			execute(line);
+		}
+		out.flush();
+		return errorCount;
+	}
+
+	public void execute(String line) throws IOException {
+		List<String> args = tokenize(line);
+		if (args.isEmpty() || args.get(0).startsWith("#")) {
+			return;
+		}
+		String command = args.get(0);
+		try {
+			switch (command) {
+			case "add-book":
+				// add-book <isbn> <copies> <year> <title> <author>
+				requireArgs(args, 6);
+				libraryService.addBook(new Book(args.get(4), args.get(5), args.get(1), Integer.parseInt(args.get(3))),
+						Integer.parseInt(args.get(2)));
+				ok(command, args.get(1));
+				break;
+			case "remove-book":
+				// remove-book <isbn>
+				requireArgs(args, 2);
+				libraryService.removeBook(args.get(1));
+				ok(command, args.get(1));
+				break;
+			case "add-patron":
+				// add-patron <name> <contact>
+				requireArgs(args, 3);
+				Patron patron = new Patron(args.get(1), args.get(2));
+				libraryService.addPatron(patron);
+				ok(command, String.valueOf(patron.getId()));
+				break;
+			case "update-patron":
+				// update-patron <patronId> <name> <contact>
+				requireArgs(args, 4);
+				int patronId = Integer.parseInt(args.get(1));
+				if (!libraryService.findPatronById(patronId).isPresent()) {
+					error(command, "Patron not found.");
+					break;
+				}
+				libraryService.updatePatron(patronId, args.get(2), args.get(3));
+				ok(command, args.get(1));
+				break;
+			case "checkout":
+				// checkout <patronId> <isbn>
+				requireArgs(args, 3);
+				LoanResult checkout = libraryService.checkout(args.get(2), Integer.parseInt(args.get(1)));
+				if (loanFailed(command, checkout)) {
+					break;
+				}
+				row("OK", command, args.get(2), args.get(1), String.valueOf(checkout.getItemId()),
+						checkout.getTransaction().getDueDate().toString());
+				break;
+			case "return":
+				// return <patronId> <isbn>
+				requireArgs(args, 3);
+				LoanResult checkin = libraryService.checkin(args.get(2), Integer.parseInt(args.get(1)));
+				if (loanFailed(command, checkin)) {
+					break;
+				}
+				row("OK", command, args.get(2), args.get(1), String.valueOf(checkin.getItemId()),
+						String.format("%.2f", checkin.getTransaction().getFineAmount()));
+				break;
+			case "search":
+				// search <query>
+				requireArgs(args, 2);
+				writeBooks(command, libraryService.searchBooks(args.get(1)));
+				break;
+			case "books":
+				writeBooks(command, libraryService.getAllBooks());
+				break;
+			case "patrons":
+				List<Patron> patrons = libraryService.getAllPatrons();
+				header(command, patrons.size());
+				for (Patron p : patrons) {
+					row(String.valueOf(p.getId()), p.getName(), p.getContactInfo());
+				}
+				break;
+			case "copies":
+				// copies <isbn>
+				requireArgs(args, 2);
+				Optional<Book> book = libraryService.findBookByIsbn(args.get(1));
+				if (!book.isPresent()) {
+					error(command, "Book with that ISBN not found.");
+					break;
+				}
+				List<BookItem> items = libraryService.getBookItems(args.get(1));
+				long available = items.stream().filter(BookItem::isAvailable).count();
+				row("OK", command, args.get(1), String.valueOf(items.size()), String.valueOf(available));
+				break;
+			case "borrowed":
+				writeTransactions(command, libraryService.getBorrowedBooks());
+				break;
+			case "history":
+				// history <patronId>
+				requireArgs(args, 2);
+				writeTransactions(command, libraryService.getPatronHistory(Integer.parseInt(args.get(1))));
+				break;
+			case "export":
+				// export <books|loans|histories> <path> <csv|jsonl> [gzip]
+				requireArgs(args, 4);
+				ok(command, String.valueOf(export(args.get(1), Paths.get(args.get(2)), args.get(3),
+						args.size() > 4 && "gzip".equals(args.get(4)))));
+				break;
+			default:
+				error(command, "Unknown command.");
+			}
+		} catch (NumberFormatException e) {
+			error(command, "Invalid number: " + e.getMessage());
+		} catch (IllegalArgumentException e) {
+			error(command, e.getMessage());
+		} catch (IOException e) {
+			error(command, "I/O failure: " + e.getMessage());
+		} catch (RuntimeException e) {
+			// E.g. a corrupt id store: fail this command, keep running the script
+			error(command, e.getClass().getSimpleName() + ": " + e.getMessage());
+		}
+	}
+
+	private long export(String what, Path target, String format, boolean compress) throws IOException {
+		ExportFormat exportFormat;
+		if ("csv".equals(format)) {
+			exportFormat = ExportFormat.CSV;
+		} else if ("jsonl".equals(format)) {
+			exportFormat = ExportFormat.JSON_LINES;
+		} else {
+			throw new IllegalArgumentException("Unknown export format: " + format);
+		}
+		LibraryExporter exporter = new LibraryExporter(libraryService);
+		switch (what) {
+		case "books":
+			return exporter.exportBooks(target, exportFormat, compress);
+		case "loans":
+			return exporter.exportLoans(target, exportFormat, compress);
+		case "histories":
+			return exporter.exportHistories(target, exportFormat, compress);
+		default:
+			throw new IllegalArgumentException("Unknown export: " + what);
+		}
+	}
+
+	private void writeBooks(String command, List<Book> books) throws IOException {
+		header(command, books.size());
+		for (Book b : books) {
+			row(b.getIsbn(), b.getTitle(), b.getAuthor(), String.valueOf(b.getPublicationYear()));
+		}
+	}
+
+	private void writeTransactions(String command, List<Transaction> transactions) throws IOException {
+		header(command, transactions.size());
+		for (Transaction t : transactions) {
+			row(t.getBook().getIsbn(), String.valueOf(t.getPatron().getId()), t.getCheckoutDate().toString(),
+					t.getReturnDate() == null ? "" : t.getReturnDate().toString(),
+					String.format("%.2f", t.getFineAmount()));
+		}
+	}
+
+	// Writes the ERR line for a failed checkout/return; the message reads "Error: <reason>"
+	private boolean loanFailed(String command, LoanResult result) throws IOException {
+		if (result.isSuccess()) {
+			return false;
+		}
+		String message = result.getMessage();
+		error(command, message.startsWith("Error:") ? message.substring("Error:".length()).trim() : message);
+		return true;
+	}
+
+	private void header(String command, int rows) throws IOException {
+		ok(command, String.valueOf(rows));
+	}
+
+	private void ok(String command, String detail) throws IOException {
+		row("OK", command, detail);
+	}
+
+	private void error(String command, String detail) throws IOException {
+		errorCount++;
+		row("ERR", command, detail);
+	}
+
+	private void row(String... fields) throws IOException {
+		for (int i = 0; i < fields.length; i++) {
+			if (i > 0) {
+				out.write(SEP);
+			}
+			writeField(fields[i]);
+		}
+		out.write('\n');
+	}
+
+	// Tabs and line breaks would break the record format, replace them with spaces
+	private void writeField(String field) throws IOException {
+		if (field == null) {
+			return;
+		}
+		for (int i = 0; i < field.length(); i++) {
+			char c = field.charAt(i);
+			out.write(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+		}
+	}
+
+	private static void requireArgs(List<String> args, int count) {
+		if (args.size() < count) {
+			throw new IllegalArgumentException("Expected " + (count - 1) + " argument(s), got " + (args.size() - 1) + ".");
+		}
+	}
+
+	// Splits on whitespace, keeping double-quoted sections together
+	static List<String> tokenize(String line) {
+		List<String> tokens = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		boolean inQuotes = false;
+		boolean hasToken = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '"') {
+				inQuotes = !inQuotes;
+				hasToken = true;
+			} else if (!inQuotes && Character.isWhitespace(c)) {
+				if (hasToken) {
+					tokens.add(current.toString());
+					current.setLength(0);
+					hasToken = false;
+				}
+			} else {
+				current.append(c);
+				hasToken = true;
+			}
+		}
+		if (hasToken) {
+			tokens.add(current.toString());
+		}
+		return tokens;
+	}
+}
@@ -1,23 +1,23 @@
 package main.java.com.library.model;
 
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicInteger;
 
 // Represents a specific physical copy of a Book (for inventory tracking)
 public class BookItem {
-    private static final AtomicInteger ID_GENERATOR = new AtomicInteger(100);
-    private final int id;
+    // Copy ids are 64-bit: large collections can exceed the int range
+    private static final IdAllocator ID_GENERATOR = new IdAllocator("book-item", 100, 1024);
+    private final long id;
     private final Book book;
     private boolean isAvailable;
 
     public BookItem(Book book) {
-        this.id = ID_GENERATOR.getAndIncrement();
+        this.id = ID_GENERATOR.nextId();
         this.book = book;
         this.isAvailable = true;
     }
 
     // Getters and Setters
-    public int getId() { return id; }
+    public long getId() { return id; }
     public Book getBook() { return book; }
     public boolean isAvailable() { return isAvailable; }
 
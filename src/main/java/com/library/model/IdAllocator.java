@@ -0,0 +1,171 @@
+package main.java.com.library.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+// 64-bit id allocator that stays unique across restarts and across processes sharing the same store.
+// Ids are handed out from blocks held by a small pool of stripes (picked by thread), so the shared state is touched
+// once per block rather than per id, and short-lived threads reuse a stripe's block instead of burning their own.
+// Blocks come from ranges claimed in <idStore>/<name>.hwm: a claim reads the high-water mark and writes it back
+// RESERVE_BLOCKS blocks further on, under an exclusive lock on <name>.hwm.lock, so concurrent runs never claim the
+// same range. The next range is claimed in the background once half of the current one is used, so allocating
+// callers (which may hold a service lock) normally never wait on the file. Unused ids are skipped, never reused.
+// The store directory comes from -Dlibrary.idStore (default ~/.library-ids, independent of the working directory);
+// "none" keeps ids in memory only. The mark is read on first use, not in the owning class's static initializer,
+// so an unreadable or corrupt mark fails that call with a clear error instead of breaking the class for good.
+public final class IdAllocator {
+    private static final String STORE_PROPERTY = "library.idStore";
+    private static final String DEFAULT_STORE_DIR = ".library-ids";
+    // Blocks per claimed range
+    private static final int RESERVE_BLOCKS = 16;
+
+    private final Path markFile;
+    private final long firstId;
+    private final int blockSize;
+    private final Stripe[] stripes;
+    // Claimed range blocks are taken from, [next, end), and the range claimed ahead of it; guarded by this
+    private long next;
+    private long end;
+    private long[] spare;
+    private boolean claimingSpare;
+    // Serializes this process's claims; the file lock only excludes other processes
+    private final Object claimLock = new Object();
+
+    IdAllocator(String name, long firstId, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive.");
+        }
+        String store = System.getProperty(STORE_PROPERTY);
+        if (store == null) {
+            this.markFile = Paths.get(System.getProperty("user.home"), DEFAULT_STORE_DIR, name + ".hwm");
+        } else {
+            this.markFile = "none".equals(store) ? null : Paths.get(store, name + ".hwm");
+        }
+        this.firstId = firstId;
+        this.blockSize = blockSize;
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.stripes = new Stripe[Integer.highestOneBit(cores * 2 - 1)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public long nextId() {
+        Stripe stripe = stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+        synchronized (stripe) {
+            if (stripe.next == stripe.end) {
+                long start = takeBlock();
+                stripe.next = start;
+                stripe.end = start + blockSize;
+            }
+            return stripe.next++;
+        }
+    }
+
+    // For ids exposed as int (e.g. patron ids); fails rather than wrapping around
+    public int nextIntId() {
+        return Math.toIntExact(nextId());
+    }
+
+    private long takeBlock() {
+        long start;
+        boolean prefetch;
+        synchronized (this) {
+            if (next == end) {
+                long[] range = spare != null ? spare : claim();
+                spare = null;
+                next = range[0];
+                end = range[1];
+            }
+            start = next;
+            next += blockSize;
+            prefetch = markFile != null && spare == null && !claimingSpare
+                    && end - next <= (long) blockSize * RESERVE_BLOCKS / 2;
+            claimingSpare |= prefetch;
+        }
+        if (prefetch) {
+            CompletableFuture.runAsync(this::claimSpare);
+        }
+        return start;
+    }
+
+    // A failed background claim is left for the next synchronous claim to retry and report
+    private void claimSpare() {
+        long[] range = null;
+        try {
+            range = claim();
+        } catch (RuntimeException e) {
+            // No spare: the next claim runs synchronously
+        }
+        synchronized (this) {
+            spare = range;
+            claimingSpare = false;
+        }
+    }
+
+    // Retried on the next call if it fails
+    private long[] claim() {
+        if (markFile == null) {
+            return new long[] { firstId, Long.MAX_VALUE };
+        }
+        synchronized (claimLock) {
+            try {
+                Files.createDirectories(markFile.toAbsolutePath().getParent());
+                // A separate lock file: the mark itself is replaced by rename, which would orphan a lock held on it
+                Path lockFile = markFile.resolveSibling(markFile.getFileName() + ".lock");
+                try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE,
+                                                            StandardOpenOption.WRITE)) {
+                    channel.lock(); // Released when the channel closes
+                    long start = Math.max(firstId, readMark());
+                    long limit = start + (long) blockSize * RESERVE_BLOCKS;
+                    writeMark(limit);
+                    return new long[] { start, limit };
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot claim ids from high-water mark " + markFile, e);
+            }
+        }
+    }
+
+    private long readMark() throws IOException {
+        if (!Files.exists(markFile)) return 0;
+        String text = new String(Files.readAllBytes(markFile), StandardCharsets.UTF_8).trim();
+        // Restarting from firstId could reissue ids already in use, so a corrupt mark is an error, not a reset
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Corrupt id high-water mark " + markFile + ": '" + text
+                    + "'. Set it to a number above the highest id in use, or point -D" + STORE_PROPERTY
+                    + " at another directory.", e);
+        }
+    }
+
+    // Write, force to disk, then rename, so a crash never leaves a truncated or unsynced mark behind
+    private void writeMark(long mark) throws IOException {
+        Path tmp = markFile.resolveSibling(markFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(Long.toString(mark).getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, markFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // One block in use; guarded by itself
+    private static final class Stripe {
+        long next;
+        long end;
+    }
+}
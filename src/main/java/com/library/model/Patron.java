@@ -3,17 +3,17 @@ package main.java.com.library.model;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class Patron {
-    private static final AtomicInteger ID_GENERATOR = new AtomicInteger(1000);
+    private static final IdAllocator ID_GENERATOR = new IdAllocator("patron", 1000, 64);
     private final int id;
+    // Mutable state is guarded by this: one Patron is shared by every branch that lends to it
     private String name;
     private String contactInfo;
     private final List<Transaction> history; // Patron History
 
     public Patron(String name, String contactInfo) {
-        this.id = ID_GENERATOR.getAndIncrement();
+        this.id = ID_GENERATOR.nextIntId();
         this.name = name;
         this.contactInfo = contactInfo;
         this.history = new ArrayList<>();
@@ -21,13 +21,18 @@ public class Patron {
 
     // Getters and Setters
     public int getId() { return id; }
-    public String getName() { return name; }
-    public String getContactInfo() { return contactInfo; }
-    public List<Transaction> getHistory() { return history; }
+    public synchronized String getName() { return name; }
+    public synchronized String getContactInfo() { return contactInfo; }
+    public synchronized List<Transaction> getHistory() { return new ArrayList<>(history); }
 
-    public void setName(String name) { this.name = name; }
-    public void setContactInfo(String contactInfo) { this.contactInfo = contactInfo; }
-    public void addTransaction(Transaction transaction) { this.history.add(transaction); }
+    // The latest loans, oldest first, without copying the whole history
+    public synchronized List<Transaction> getRecentHistory(int limit) {
+        return new ArrayList<>(history.subList(Math.max(0, history.size() - limit), history.size()));
+    }
+
+    public synchronized void setName(String name) { this.name = name; }
+    public synchronized void setContactInfo(String contactInfo) { this.contactInfo = contactInfo; }
+    public synchronized void addTransaction(Transaction transaction) { this.history.add(transaction); }
 
     @Override
     public boolean equals(Object o) {
@@ -44,6 +49,8 @@ public class Patron {
 
     @Override
     public String toString() {
-        return String.format("ID: %d, Name: %s, Contact: %s", id, name, contactInfo);
+        synchronized (this) {
+            return String.format("ID: %d, Name: %s, Contact: %s", id, name, contactInfo);
+        }
     }
 }
\ No newline at end of file
@@ -3,6 +3,9 @@ package main.java.com.library.model;
 import java.time.LocalDate;
 
 public class Transaction {
+    // Days a copy may be kept before it is due
+    public static final int LOAN_PERIOD_DAYS = 14;
+
     private final Patron patron;
     private final Book book;
     private final LocalDate checkoutDate;
@@ -23,6 +26,7 @@ public class Transaction {
     public LocalDate getCheckoutDate() { return checkoutDate; }
     public LocalDate getReturnDate() { return returnDate; }
     public double getFineAmount() { return fineAmount; }
+    public LocalDate getDueDate() { return checkoutDate.plusDays(LOAN_PERIOD_DAYS); }
 
     public void setReturnDate(LocalDate returnDate) { this.returnDate = returnDate; }
     public void setFineAmount(double fineAmount) { this.fineAmount = fineAmount; }
@@ -0,0 +1,201 @@
+package main.java.com.library.service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import main.java.com.library.model.Book;
+import main.java.com.library.model.BookItem;
+import main.java.com.library.model.Patron;
+import main.java.com.library.model.Transaction;
+
+// Non-blocking facade over a LibraryService for async callers (e.g. an event-loop web tier).
+// Every call returns immediately with a CompletableFuture and runs on the given executor; calls on the same ISBN
+// run one after another in submission order, so callers can pipeline requests without reordering a copy's loans.
+// The default executor is a bounded pool; on JDK 21+ pass Executors.newVirtualThreadPerTaskExecutor() instead.
+public class AsyncLibraryService implements AutoCloseable {
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private final LibraryService libraryService;
+    private final ExecutorService executor;
+    // ISBN -> last submitted operation on it; removed once that operation completes and nothing follows it
+    private final ConcurrentHashMap<String, CompletableFuture<?>> isbnTails = new ConcurrentHashMap<>();
+
+    public AsyncLibraryService(LibraryService libraryService) {
+        this(libraryService, defaultExecutor());
+    }
+
+    public AsyncLibraryService(LibraryService libraryService, ExecutorService executor) {
+        this.libraryService = libraryService;
+        this.executor = executor;
+    }
+
+    // Fixed pool of 4 threads per core with a bounded queue; overflow fails the future instead of blocking the caller
+    private static ExecutorService defaultExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors() * 4;
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(DEFAULT_QUEUE_CAPACITY), r -> {
+                    Thread t = new Thread(r, "library-async-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // --- Book Management (ordered per ISBN) ---
+
+    public CompletableFuture<Void> addBook(Book book, int copies) {
+        return onIsbn(book.getIsbn(), () -> {
+            libraryService.addBook(book, copies);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> removeBook(String isbn) {
+        return onIsbn(isbn, () -> {
+            libraryService.removeBook(isbn);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> updateBook(String isbn, String newTitle, String newAuthor, Integer newYear) {
+        return onIsbn(isbn, () -> {
+            libraryService.updateBook(isbn, newTitle, newAuthor, newYear);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Optional<Book>> findBookByIsbn(String isbn) {
+        return onIsbn(isbn, () -> libraryService.findBookByIsbn(isbn));
+    }
+
+    public CompletableFuture<List<BookItem>> getBookItems(String isbn) {
+        return onIsbn(isbn, () -> libraryService.getBookItems(isbn));
+    }
+
+    public CompletableFuture<List<Book>> searchBooks(String query) {
+        return async(() -> libraryService.searchBooks(query));
+    }
+
+    public CompletableFuture<BookPage> findBooksByPublicationYear(int fromYear, int toYear, Book after, int pageSize) {
+        return async(() -> libraryService.findBooksByPublicationYear(fromYear, toYear, after, pageSize));
+    }
+
+    public CompletableFuture<BookPage> findBooksByAuthor(String author, Book after, int pageSize) {
+        return async(() -> libraryService.findBooksByAuthor(author, after, pageSize));
+    }
+
+    public CompletableFuture<List<Book>> getAllBooks() {
+        return async(libraryService::getAllBooks);
+    }
+
+    // --- Patron Management ---
+
+    public CompletableFuture<Void> addPatron(Patron patron) {
+        return async(() -> {
+            libraryService.addPatron(patron);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> updatePatron(int id, String newName, String newContactInfo) {
+        return async(() -> {
+            libraryService.updatePatron(id, newName, newContactInfo);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Optional<Patron>> findPatronById(int id) {
+        return async(() -> libraryService.findPatronById(id));
+    }
+
+    public CompletableFuture<List<Patron>> getAllPatrons() {
+        return async(libraryService::getAllPatrons);
+    }
+
+    public CompletableFuture<List<Transaction>> getPatronHistory(int patronId) {
+        return async(() -> libraryService.getPatronHistory(patronId));
+    }
+
+    // --- Lending Process (ordered per ISBN) ---
+
+    public CompletableFuture<LoanResult> checkout(String isbn, int patronId) {
+        return onIsbn(isbn, () -> libraryService.checkout(isbn, patronId));
+    }
+
+    public CompletableFuture<LoanResult> checkin(String isbn, int patronId) {
+        return onIsbn(isbn, () -> libraryService.checkin(isbn, patronId));
+    }
+
+    public CompletableFuture<String> checkoutBook(String isbn, int patronId) {
+        return onIsbn(isbn, () -> libraryService.checkoutBook(isbn, patronId));
+    }
+
+    public CompletableFuture<String> returnBook(String isbn, int patronId) {
+        return onIsbn(isbn, () -> libraryService.returnBook(isbn, patronId));
+    }
+
+    public CompletableFuture<List<Transaction>> getBorrowedBooks() {
+        return async(libraryService::getBorrowedBooks);
+    }
+
+    // --- Reporting ---
+
+    public CompletableFuture<List<Book>> getMostBorrowedBooks(int limit) {
+        return async(() -> libraryService.getMostBorrowedBooks(limit));
+    }
+
+    public CompletableFuture<List<Book>> getMostBorrowedBooks(String author, int limit) {
+        return async(() -> libraryService.getMostBorrowedBooks(author, limit));
+    }
+
+    public CompletableFuture<List<Book>> recommend(String isbn, int limit) {
+        return async(() -> libraryService.recommend(isbn, limit));
+    }
+
+    public CompletableFuture<LibrarySnapshot> getSnapshot() {
+        return async(libraryService::getSnapshot);
+    }
+
+    // Events are already delivered asynchronously by the service; only the registration runs on the executor
+    public CompletableFuture<LibraryEventBus.Subscription> subscribe(LibraryEventListener listener) {
+        return async(() -> libraryService.subscribe(listener));
+    }
+
+    // Access to the wrapped service for calls that do not need to be async
+    public LibraryService getLibraryService() { return libraryService; }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    // --- Scheduling ---
+
+    private <T> CompletableFuture<T> async(Supplier<T> operation) {
+        try {
+            return CompletableFuture.supplyAsync(operation, executor);
+        } catch (RuntimeException e) { // Rejected: executor saturated or closed
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    // Chains the operation after the previous one on the same ISBN, whether that one succeeded or failed
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> onIsbn(String isbn, Supplier<T> operation) {
+        CompletableFuture<?> next = isbnTails.compute(isbn, (key, previous) -> previous == null
+                ? async(operation)
+                : previous.handle((result, error) -> null).thenApplyAsync(ignored -> operation.get(), executor));
+        next.whenComplete((result, error) -> isbnTails.remove(isbn, next));
+        return (CompletableFuture<T>) next;
+    }
+}
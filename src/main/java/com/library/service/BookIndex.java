@@ -0,0 +1,82 @@
+package main.java.com.library.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import main.java.com.library.model.Book;
+
+// Sorted secondary indexes over the catalog: publication year, and normalized author (each author's books by year).
+// Range queries seek with the last book of the previous page as cursor, so a page costs O(log n + page size).
+// Not thread-safe; guarded by the owning LibraryServiceImpl.
+class BookIndex {
+    // Year, then ISBN as tie-breaker so every book has a unique position
+    static final Comparator<Book> BY_YEAR = Comparator.comparingInt(Book::getPublicationYear)
+            .thenComparing(Book::getIsbn);
+
+    private final TreeSet<Book> byYear = new TreeSet<>(BY_YEAR);
+    private final TreeMap<String, TreeSet<Book>> byAuthor = new TreeMap<>();
+
+    static String normalizeAuthor(String author) {
+        return author.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    void add(Book book) {
+        byYear.add(book);
+        byAuthor.computeIfAbsent(normalizeAuthor(book.getAuthor()), a -> new TreeSet<>(BY_YEAR)).add(book);
+    }
+
+    void remove(Book book) {
+        byYear.remove(book);
+        String author = normalizeAuthor(book.getAuthor());
+        TreeSet<Book> books = byAuthor.get(author);
+        if (books != null && books.remove(book) && books.isEmpty()) {
+            byAuthor.remove(author);
+        }
+    }
+
+    BookPage byPublicationYear(int fromYear, int toYear, Book after, int pageSize) {
+        if (fromYear > toYear) {
+            return new BookPage(new ArrayList<>(), null);
+        }
+        // "" sorts before every ISBN, so these sentinels bracket whole years
+        Book lower = new Book(null, null, "", fromYear);
+        NavigableSet<Book> range = toYear == Integer.MAX_VALUE
+                ? byYear.tailSet(lower, true)
+                : byYear.subSet(lower, true, new Book(null, null, "", toYear + 1), false);
+        return page(range, after, pageSize);
+    }
+
+    BookPage byAuthor(String author, Book after, int pageSize) {
+        TreeSet<Book> books = byAuthor.get(normalizeAuthor(author));
+        if (books == null) {
+            return new BookPage(new ArrayList<>(), null);
+        }
+        return page(books, after, pageSize);
+    }
+
+    private static BookPage page(NavigableSet<Book> range, Book after, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+        NavigableSet<Book> remaining = range;
+        if (after != null && !range.isEmpty() && BY_YEAR.compare(after, range.first()) >= 0) {
+            // A cursor at or past the last book has nothing after it (and tailSet would reject one past the bound)
+            if (BY_YEAR.compare(after, range.last()) >= 0) {
+                return new BookPage(new ArrayList<>(), null);
+            }
+            remaining = range.tailSet(after, false);
+        }
+        List<Book> books = new ArrayList<>(Math.min(pageSize, 64));
+        Iterator<Book> it = remaining.iterator();
+        while (it.hasNext() && books.size() < pageSize) {
+            books.add(it.next());
+        }
+        return new BookPage(books, it.hasNext() ? books.get(books.size() - 1) : null);
+    }
+}
@@ -0,0 +1,21 @@
+package main.java.com.library.service;
+
+import java.util.Collections;
+import java.util.List;
+
+import main.java.com.library.model.Book;
+
+// One page of a sorted range query. Pass getNextCursor() as "after" to fetch the following page.
+public final class BookPage {
+    private final List<Book> books;
+    private final Book nextCursor;
+
+    BookPage(List<Book> books, Book nextCursor) {
+        this.books = Collections.unmodifiableList(books);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Book> getBooks() { return books; }
+    public Book getNextCursor() { return nextCursor; }
+    public boolean hasNext() { return nextCursor != null; }
+}
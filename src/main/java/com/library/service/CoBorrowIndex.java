@@ -0,0 +1,203 @@
+package main.java.com.library.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import main.java.com.library.model.Patron;
+import main.java.com.library.model.Transaction;
+
+// "Patrons who borrowed this also borrowed" index: sparse ISBN co-occurrence counts,
+// keeping only the top neighbors per book in primitive arrays sorted by count (so recommend() is a prefix copy).
+// Updated incrementally per checkout from the patron's recent history window; rows lock independently.
+// rebuild() swaps in a whole new table, so readers never see a half-built one.
+public class CoBorrowIndex {
+    public static final int DEFAULT_WINDOW = 20;
+    public static final int DEFAULT_NEIGHBORS = 32;
+
+    private final int window;
+    private final int neighbors;
+
+    // Read once per call; rebuild() replaces it with a single volatile write
+    private volatile Generation generation;
+
+    public CoBorrowIndex() {
+        this(DEFAULT_WINDOW, DEFAULT_NEIGHBORS);
+    }
+
+    public CoBorrowIndex(int window, int neighbors) {
+        if (window <= 0 || neighbors <= 0) {
+            throw new IllegalArgumentException("Window and neighbor count must be positive.");
+        }
+        this.window = window;
+        this.neighbors = neighbors;
+        this.generation = new Generation(new Table(neighbors), null, null);
+    }
+
+    public int getWindow() { return window; }
+
+    // Called on checkout with the ISBNs of the patron's most recent earlier loans (at most getWindow()).
+    // The caller holds the patron's monitor and adds the loan to its history in the same critical section,
+    // which is what lets a concurrent rebuild() count every loan exactly once.
+    public void recordCheckout(int patronId, String isbn, List<String> recentIsbns) {
+        Generation current = generation;
+        current.live.record(isbn, recentIsbns);
+        // Patrons the rebuild has yet to read will bring this loan along with their history
+        if (current.next != null && !current.unread.contains(patronId)) {
+            current.next.record(isbn, recentIsbns);
+        }
+    }
+
+    // Up to k ISBNs most often co-borrowed with the given one, strongest first
+    public List<String> recommend(String isbn, int k) {
+        return generation.live.recommend(isbn, k);
+    }
+
+    // Rebuilds from every patron's history, one patron per task on the common fork-join pool. The new table is
+    // built off to the side while recommend() keeps serving the old one, then published in one volatile write.
+    // Checkouts made meanwhile go to both tables unless the patron's history has still to be read.
+    public synchronized void rebuild(Collection<Patron> patrons) {
+        Table next = new Table(neighbors);
+        Set<Integer> unread = ConcurrentHashMap.newKeySet();
+        for (Patron patron : patrons) {
+            unread.add(patron.getId());
+        }
+        generation = new Generation(generation.live, next, unread);
+        patrons.parallelStream().forEach(patron -> {
+            List<Transaction> history;
+            synchronized (patron) {
+                history = patron.getHistory(); // A copy
+                unread.remove(patron.getId());
+            }
+            history.sort((a, b) -> a.getCheckoutDate().compareTo(b.getCheckoutDate()));
+            List<String> recent = new ArrayList<>(window);
+            for (Transaction t : history) {
+                String isbn = t.getBook().getIsbn();
+                next.record(isbn, recent);
+                if (recent.size() == window) recent.remove(0);
+                recent.add(isbn);
+            }
+        });
+        generation = new Generation(next, null, null);
+    }
+
+    public synchronized void clear() {
+        generation = new Generation(new Table(neighbors), null, null);
+    }
+
+    // The table serving recommend(), plus the one a running rebuild() is filling and the patrons it has yet to read
+    private static final class Generation {
+        final Table live;
+        final Table next;
+        final Set<Integer> unread;
+
+        Generation(Table live, Table next, Set<Integer> unread) {
+            this.live = live;
+            this.next = next;
+            this.unread = unread;
+        }
+    }
+
+    private static final class Table {
+        private final int neighbors;
+        // ISBN <-> dense int id; rows[id] holds that book's neighbors
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private volatile String[] isbns = new String[1024];
+        private volatile Row[] rows = new Row[1024];
+        private int nextId; // guarded by this
+
+        Table(int neighbors) {
+            this.neighbors = neighbors;
+        }
+
+        void record(String isbn, List<String> recentIsbns) {
+            int id = idOf(isbn);
+            for (int i = 0; i < recentIsbns.size(); i++) {
+                String other = recentIsbns.get(i);
+                if (other.equals(isbn) || recentIsbns.subList(0, i).contains(other)) continue;
+                int otherId = idOf(other);
+                rows[id].increment(otherId);
+                rows[otherId].increment(id);
+            }
+        }
+
+        List<String> recommend(String isbn, int k) {
+            Integer id = ids.get(isbn);
+            if (id == null) return Collections.emptyList();
+            int[] top = rows[id].top(k);
+            String[] names = isbns;
+            List<String> result = new ArrayList<>(top.length);
+            for (int neighborId : top) {
+                result.add(names[neighborId]);
+            }
+            return result;
+        }
+
+        private int idOf(String isbn) {
+            Integer id = ids.get(isbn);
+            if (id != null) return id;
+            synchronized (this) {
+                id = ids.get(isbn);
+                if (id != null) return id;
+                if (nextId == isbns.length) {
+                    isbns = Arrays.copyOf(isbns, nextId * 2);
+                    rows = Arrays.copyOf(rows, nextId * 2);
+                }
+                isbns[nextId] = isbn;
+                rows[nextId] = new Row(neighbors);
+                ids.put(isbn, nextId); // Publishes the slots written above
+                return nextId++;
+            }
+        }
+    }
+
+    // Fixed-capacity neighbor list sorted by count descending; a new neighbor replaces the weakest (Space-Saving)
+    private static final class Row {
+        private final int[] neighborIds;
+        private final int[] counts;
+        private int size;
+
+        Row(int capacity) {
+            this.neighborIds = new int[capacity];
+            this.counts = new int[capacity];
+        }
+
+        synchronized void increment(int neighborId) {
+            int i = 0;
+            while (i < size && neighborIds[i] != neighborId) i++;
+            if (i == size) {
+                if (size < neighborIds.length) {
+                    size++;
+                    counts[i] = 0;
+                } else {
+                    i = size - 1;
+                }
+                neighborIds[i] = neighborId;
+            }
+            counts[i]++;
+            // Restore descending order
+            while (i > 0 && counts[i - 1] < counts[i]) {
+                swap(i - 1, i);
+                i--;
+            }
+        }
+
+        synchronized int[] top(int k) {
+            return Arrays.copyOf(neighborIds, Math.min(k, size));
+        }
+
+        private void swap(int a, int b) {
+            int id = neighborIds[a];
+            neighborIds[a] = neighborIds[b];
+            neighborIds[b] = id;
+            int count = counts[a];
+            counts[a] = counts[b];
+            counts[b] = count;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package main.java.com.library.service;
+
+// Output formats supported by LibraryExporter
+public enum ExportFormat {
+    CSV,        // RFC 4180 style, header row first
+    JSON_LINES  // one JSON object per line
+}
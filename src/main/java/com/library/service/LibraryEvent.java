@@ -0,0 +1,89 @@
+package main.java.com.library.service;
+
+import java.time.Instant;
+
+// Typed change event published by LibraryService mutations.
+// availableCopies is the ISBN's available copy count right after the change, in the publishing branch only;
+// branch is null for a single-branch LibraryServiceImpl. Unused ids are NONE.
+// EVENTS_DROPPED is not published by services: LibraryEventBus delivers it ahead of the surviving events when a
+// subscriber fell behind and lost getDroppedCount() older events, so the subscriber can resync from a snapshot.
+public final class LibraryEvent {
+    public static final int NONE = -1;
+
+    public enum Type {
+        BOOK_ADDED,
+        BOOK_REMOVED,
+        LOAN_OPENED,
+        LOAN_CLOSED,
+        PATRON_UPDATED,
+        EVENTS_DROPPED
+    }
+
+    private final String branch;
+    private final Type type;
+    private final String isbn;
+    private final int patronId;
+    private final long itemId;
+    private final int availableCopies;
+    private final long droppedCount;
+    private final Instant timestamp;
+
+    public LibraryEvent(Type type, String isbn, int patronId, long itemId, int availableCopies) {
+        this(null, type, isbn, patronId, itemId, availableCopies);
+    }
+
+    public LibraryEvent(String branch, Type type, String isbn, int patronId, long itemId, int availableCopies) {
+        this(branch, type, isbn, patronId, itemId, availableCopies, 0);
+    }
+
+    private LibraryEvent(String branch, Type type, String isbn, int patronId, long itemId, int availableCopies,
+                         long droppedCount) {
+        this.branch = branch;
+        this.type = type;
+        this.isbn = isbn;
+        this.patronId = patronId;
+        this.itemId = itemId;
+        this.availableCopies = availableCopies;
+        this.droppedCount = droppedCount;
+        this.timestamp = Instant.now();
+    }
+
+    static LibraryEvent eventsDropped(long droppedCount) {
+        return new LibraryEvent(null, Type.EVENTS_DROPPED, null, NONE, NONE, NONE, droppedCount);
+    }
+
+    // Getters
+    public String getBranch() { return branch; }
+    public Type getType() { return type; }
+    public String getIsbn() { return isbn; }
+    public int getPatronId() { return patronId; }
+    public long getItemId() { return itemId; }
+    public int getAvailableCopies() { return availableCopies; }
+    public long getDroppedCount() { return droppedCount; }
+    public Instant getTimestamp() { return timestamp; }
+
+    // Pending events with the same key are coalesced: only the latest is delivered.
+    // The key includes the branch, so one branch's count never replaces another's.
+    String coalesceKey() {
+        switch (type) {
+        case BOOK_ADDED:
+        case BOOK_REMOVED:
+            return branch + ":" + type + ":" + isbn;
+        case PATRON_UPDATED:
+            return branch + ":" + type + ":" + patronId;
+        case EVENTS_DROPPED:
+            return type.toString();
+        default:
+            return branch + ":" + type + ":" + itemId + ":" + patronId;
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (type == Type.EVENTS_DROPPED) {
+            return String.format("%s count=%d at %s", type, droppedCount, timestamp);
+        }
+        return String.format("%s branch=%s isbn=%s patron=%d item=%d available=%d at %s",
+                             type, branch, isbn, patronId, itemId, availableCopies, timestamp);
+    }
+}
@@ -0,0 +1,183 @@
+package main.java.com.library.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Asynchronous, batched fan-out of LibraryEvents to subscribers.
+// publish() never blocks: each subscriber has a bounded queue; pending events with the same key are coalesced,
+// and when a slow subscriber's queue is still full its oldest event is dropped (and counted). The subscriber then
+// gets an EVENTS_DROPPED event ahead of the events that survived, so it knows to resync.
+// Every subscription is delivered on its own dispatcher thread (released after IDLE_SECONDS without events),
+// so a listener that blocks only delays itself.
+public class LibraryEventBus {
+    private static final Logger LOGGER = Logger.getLogger(LibraryEventBus.class.getName());
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    private static final int IDLE_SECONDS = 30;
+
+    private final ThreadFactory threadFactory;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean shutdown;
+
+    public LibraryEventBus() {
+        this(daemonThreads());
+    }
+
+    public LibraryEventBus(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "library-event-dispatcher-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    public Subscription subscribe(LibraryEventListener listener) {
+        return subscribe(listener, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public Subscription subscribe(LibraryEventListener listener, int capacity, int batchSize) {
+        if (capacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive.");
+        }
+        if (shutdown) {
+            throw new IllegalStateException("Event bus is shut down.");
+        }
+        Subscription subscription = new Subscription(listener, capacity, batchSize);
+        subscriptions.add(subscription);
+        if (shutdown) {
+            subscription.dispatcher.shutdown();
+        }
+        return subscription;
+    }
+
+    public void publish(LibraryEvent event) {
+        for (Subscription subscription : subscriptions) {
+            subscription.enqueue(event);
+        }
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        for (Subscription subscription : subscriptions) {
+            subscription.dispatcher.shutdown();
+        }
+    }
+
+    public final class Subscription implements AutoCloseable {
+        private final LibraryEventListener listener;
+        private final int capacity;
+        private final int batchSize;
+        private final ThreadPoolExecutor dispatcher;
+        // Coalesce key -> latest pending event, in publish order; guarded by this
+        private final LinkedHashMap<String, LibraryEvent> pending = new LinkedHashMap<>();
+        private boolean scheduled;
+        private long droppedCount;
+        // Dropped since the last EVENTS_DROPPED delivered
+        private long unreportedDrops;
+        private long coalescedCount;
+
+        private Subscription(LibraryEventListener listener, int capacity, int batchSize) {
+            this.listener = listener;
+            this.capacity = capacity;
+            this.batchSize = batchSize;
+            this.dispatcher = new ThreadPoolExecutor(1, 1, IDLE_SECONDS, TimeUnit.SECONDS,
+                                                     new LinkedBlockingQueue<>(), threadFactory);
+            dispatcher.allowCoreThreadTimeOut(true);
+        }
+
+        public synchronized long getDroppedCount() { return droppedCount; }
+        public synchronized long getCoalescedCount() { return coalescedCount; }
+        public synchronized int getPendingCount() { return pending.size(); }
+
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+            dispatcher.shutdown();
+            synchronized (this) {
+                pending.clear();
+                unreportedDrops = 0;
+            }
+        }
+
+        private void enqueue(LibraryEvent event) {
+            boolean schedule;
+            synchronized (this) {
+                String key = event.coalesceKey();
+                if (pending.remove(key) != null) {
+                    coalescedCount++;
+                } else if (pending.size() >= capacity) {
+                    Iterator<LibraryEvent> eldest = pending.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    droppedCount++;
+                    unreportedDrops++;
+                }
+                pending.put(key, event);
+                schedule = !scheduled;
+                scheduled = true;
+            }
+            if (schedule) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            try {
+                dispatcher.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    scheduled = false;
+                }
+            }
+        }
+
+        // Delivers one batch, then reschedules itself (keeping this subscription's thread) while events remain
+        private void drain() {
+            List<LibraryEvent> batch = new ArrayList<>(batchSize);
+            synchronized (this) {
+                if (unreportedDrops > 0) {
+                    batch.add(LibraryEvent.eventsDropped(unreportedDrops));
+                    unreportedDrops = 0;
+                }
+                Iterator<LibraryEvent> it = pending.values().iterator();
+                while (it.hasNext() && batch.size() < batchSize) {
+                    batch.add(it.next());
+                    it.remove();
+                }
+                if (batch.isEmpty()) {
+                    scheduled = false;
+                    return;
+                }
+            }
+            try {
+                listener.onEvents(batch);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Event listener failed.", e);
+            }
+            boolean more;
+            synchronized (this) {
+                more = !pending.isEmpty();
+                scheduled = more;
+            }
+            if (more) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package main.java.com.library.service;
+
+import java.util.List;
+
+// Subscriber callback; receives events in publish order, in batches, on the subscription's own dispatcher thread
+public interface LibraryEventListener {
+    void onEvents(List<LibraryEvent> events);
+}
@@ -0,0 +1,88 @@
+package main.java.com.library.service;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+import main.java.com.library.model.Book;
+import main.java.com.library.service.LibrarySnapshot.LoanRecord;
+import main.java.com.library.service.LibrarySnapshot.PatronRecord;
+
+// Streams catalog, open loans and patron histories to CSV / JSON lines files (optionally gzip-compressed).
+// Rows are read lazily from a single LibrarySnapshot (taken without locking or copying) and encoded one at a time,
+// so nothing is materialized per export and every file reflects one consistent version.
+public class LibraryExporter {
+    private final LibraryService libraryService;
+
+    public LibraryExporter(LibraryService libraryService) {
+        this.libraryService = libraryService;
+    }
+
+    // Returns the number of rows written
+    public long exportBooks(Path target, ExportFormat format, boolean compress) throws IOException {
+        LibrarySnapshot snapshot = libraryService.getSnapshot();
+        try (RecordEncoder out = open(target, format, compress,
+                "isbn", "title", "author", "publicationYear", "totalCopies", "availableCopies")) {
+            for (Book book : snapshot.getBooks()) {
+                out.value(book.getIsbn()).value(book.getTitle()).value(book.getAuthor())
+                   .value(book.getPublicationYear())
+                   .value(snapshot.getTotalCopies(book.getIsbn()))
+                   .value(snapshot.getAvailableCopies(book.getIsbn()))
+                   .endRecord();
+            }
+            return out.getRecordCount();
+        }
+    }
+
+    public long exportLoans(Path target, ExportFormat format, boolean compress) throws IOException {
+        LibrarySnapshot snapshot = libraryService.getSnapshot();
+        try (RecordEncoder out = open(target, format, compress,
+                "isbn", "title", "patronId", "checkoutDate", "dueDate")) {
+            for (LoanRecord loan : snapshot.getOpenLoans()) {
+                out.value(loan.getIsbn()).value(loan.getTitle())
+                   .value(loan.getPatronId())
+                   .value(loan.getCheckoutDate().toString())
+                   .value(loan.getDueDate().toString())
+                   .endRecord();
+            }
+            return out.getRecordCount();
+        }
+    }
+
+    // One row per loan (open or returned), with the patron's name as of the snapshot
+    public long exportHistories(Path target, ExportFormat format, boolean compress) throws IOException {
+        LibrarySnapshot snapshot = libraryService.getSnapshot();
+        try (RecordEncoder out = open(target, format, compress,
+                "patronId", "patronName", "isbn", "title", "checkoutDate", "returnDate", "fineAmount")) {
+            for (LoanRecord loan : snapshot.getLoans()) {
+                PatronRecord patron = snapshot.getPatron(loan.getPatronId());
+                out.value(loan.getPatronId()).value(patron == null ? null : patron.getName())
+                   .value(loan.getIsbn()).value(loan.getTitle())
+                   .value(loan.getCheckoutDate().toString())
+                   .value(loan.getReturnDate() == null ? null : loan.getReturnDate().toString())
+                   .value(loan.getFineAmount())
+                   .endRecord();
+            }
+            return out.getRecordCount();
+        }
+    }
+
+    private static RecordEncoder open(Path target, ExportFormat format, boolean compress, String... columns)
+            throws IOException {
+        FileChannel file = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                            StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            WritableByteChannel channel = compress
+                    ? Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(file), 1 << 16))
+                    : file;
+            return new RecordEncoder(channel, format, columns);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+}
@@ -15,6 +15,9 @@ public interface LibraryService {
     void updateBook(String isbn, String newTitle, String newAuthor, Integer newYear);
     Optional<Book> findBookByIsbn(String isbn);
     List<Book> searchBooks(String query);
+    // Sorted range queries, paged by cursor (pass null, then the previous page's getNextCursor())
+    BookPage findBooksByPublicationYear(int fromYear, int toYear, Book after, int pageSize);
+    BookPage findBooksByAuthor(String author, Book after, int pageSize);
     List<BookItem> getBookItems(String isbn);
 
     // Patron Management
@@ -24,8 +27,17 @@ public interface LibraryService {
     List<Patron> getAllPatrons();
 
     // Lending Process
-    String checkoutBook(String isbn, int patronId);
-    String returnBook(String isbn, int patronId);
+    LoanResult checkout(String isbn, int patronId);
+    LoanResult checkin(String isbn, int patronId);
+
+    // Human-readable outcome of checkout/checkin ("Success: ..." / "Error: ...")
+    default String checkoutBook(String isbn, int patronId) {
+        return checkout(isbn, patronId).getMessage();
+    }
+
+    default String returnBook(String isbn, int patronId) {
+        return checkin(isbn, patronId).getMessage();
+    }
     
     // Inventory
     List<Transaction> getBorrowedBooks();
@@ -33,4 +45,17 @@ public interface LibraryService {
     
     // Patron History
     List<Transaction> getPatronHistory(int patronId);
+
+    // Popularity: most borrowed books over the recent window (estimates), overall or for one author
+    List<Book> getMostBorrowedBooks(int limit);
+    List<Book> getMostBorrowedBooks(String author, int limit);
+
+    // Recommendations: books most often borrowed by patrons who also borrowed this one
+    List<Book> recommend(String isbn, int limit);
+
+    // Change events (asynchronous, batched; slow subscribers never block mutations)
+    LibraryEventBus.Subscription subscribe(LibraryEventListener listener);
+
+    // Reporting: consistent, immutable view of the library at a single instant
+    LibrarySnapshot getSnapshot();
 }
\ No newline at end of file
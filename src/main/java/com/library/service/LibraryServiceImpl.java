@@ -1,12 +1,14 @@
 package main.java.com.library.service;
 
 import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -16,39 +18,99 @@ import main.java.com.library.model.Book;
 import main.java.com.library.model.BookItem;
 import main.java.com.library.model.Patron;
 import main.java.com.library.model.Transaction;
+import main.java.com.library.service.LibrarySnapshot.LoanRecord;
+import main.java.com.library.service.LibrarySnapshot.PatronRecord;
 
 // Implements LibraryService, follows SRP (focus on business logic)
+// Thread-safe: operations are serialized on the instance monitor; reporting reads go through getSnapshot(), lock-free
 public class LibraryServiceImpl implements LibraryService {
     private static final Logger LOGGER = Logger.getLogger(LibraryServiceImpl.class.getName());
+    // Lending failures (shared with ShardedLibraryService's routing)
+    static final String PATRON_NOT_FOUND = "Error: Patron not found.";
+    static final String OUT_OF_STOCK = "Error: Book is out of stock or all copies are currently borrowed.";
+    static final String NO_ACTIVE_CHECKOUT = "Error: No active checkout found for this book and patron combination.";
     
     // Maps: ISBN -> Book
     private final Map<String, Book> bookCatalog; 
+    // Sorted secondary indexes (publication year, author) over bookCatalog
+    private final BookIndex bookIndex;
     // Maps: ISBN -> List of physical copies (BookItem)
     private final Map<String, List<BookItem>> inventory;
+    // Maps: ISBN -> copies currently on the shelf (checkout takes from the front)
+    private final Map<String, ArrayDeque<BookItem>> availableCopies;
     // Maps: Patron ID -> Patron
     private final Map<Integer, Patron> patrons;
+    // Patrons registered with another branch who borrowed here (ShardedLibraryService); not listed or snapshotted
+    private final Map<Integer, Patron> visitors;
     // Tracks current checkouts: BookItem ID -> Transaction
-    private final Map<Integer, Transaction> currentCheckouts;
+    private final Map<Long, Transaction> currentCheckouts;
+    // Open loans by (patron, ISBN) -> copies lent, oldest first (lets returnBook skip scanning currentCheckouts)
+    private final Map<LoanKey, ArrayDeque<BookItem>> openLoans;
 
     private final FineCalculationStrategy fineStrategy;
+    // LRU cache in front of searchBooks, invalidated per book by addBook/removeBook
+    private final SearchResultCache searchCache;
+    // Streaming most-borrowed tracker fed by checkoutBook
+    private final PopularityTracker popularity;
+    // Co-borrowing recommendation index fed by checkoutBook (may be shared between shards)
+    private final CoBorrowIndex coBorrowIndex;
+    // Publishes change events to subscribers (may be shared between shards)
+    private final LibraryEventBus eventBus;
+    // Branch reported in change events (null when not part of a ShardedLibraryService)
+    private final String branch;
+
+    // Immutable reporting state, replaced (never modified) by every mutation; read by getSnapshot() without the lock
+    private volatile LibraryState state = LibraryState.EMPTY;
+    // ID of the next LoanRecord (guarded by the instance monitor)
+    private long nextLoanId = 1;
 
     public LibraryServiceImpl() {
+        this(new SearchResultCache());
+    }
+
+    public LibraryServiceImpl(SearchResultCache searchCache) {
+        this(searchCache, new PopularityTracker(), new CoBorrowIndex(), new LibraryEventBus());
+    }
+
+    public LibraryServiceImpl(SearchResultCache searchCache, PopularityTracker popularity, CoBorrowIndex coBorrowIndex,
+                              LibraryEventBus eventBus) {
+        this(null, searchCache, popularity, coBorrowIndex, eventBus);
+    }
+
+    // branch names the source of published events when several services share one event bus
+    public LibraryServiceImpl(String branch, SearchResultCache searchCache, PopularityTracker popularity,
+                              CoBorrowIndex coBorrowIndex, LibraryEventBus eventBus) {
+        this.branch = branch;
         this.bookCatalog = new HashMap<>();
+        this.bookIndex = new BookIndex();
         this.inventory = new HashMap<>();
+        this.availableCopies = new HashMap<>();
         this.patrons = new HashMap<>();
+        this.visitors = new HashMap<>();
         this.currentCheckouts = new HashMap<>();
+        this.openLoans = new HashMap<>();
         this.fineStrategy = new DefaultFineStrategy(); // Strategy Pattern usage
+        this.searchCache = searchCache;
+        this.popularity = popularity;
+        this.coBorrowIndex = coBorrowIndex;
+        this.eventBus = eventBus;
+    }
+
+    public SearchResultCache getSearchCache() {
+        return searchCache;
     }
 
     // --- Book Management ---
 
     @Override
-    public void addBook(Book book, int copies) {
+    public synchronized void addBook(Book book, int copies) {
         if (bookCatalog.containsKey(book.getIsbn())) {
             LOGGER.log(Level.INFO, "Book with ISBN {0} already exists. Adding {1} more copies.", 
                        new Object[]{book.getIsbn(), copies});
         } else {
             bookCatalog.put(book.getIsbn(), book);
+            bookIndex.add(book);
+            searchCache.invalidate(book);
         }
         
         // Java 8 equivalent of computeIfAbsent
@@ -60,27 +122,39 @@ public class LibraryServiceImpl implements LibraryService {
             inventory.put(book.getIsbn(), bookItems);
         }
         
+        ArrayDeque<BookItem> shelf = availableCopies.computeIfAbsent(book.getIsbn(), k -> new ArrayDeque<>());
         for (int i = 0; i < copies; i++) {
-            bookItems.add(new BookItem(book));
+            BookItem item = new BookItem(book);
+            bookItems.add(item);
+            shelf.addLast(item);
         }
+        state = state.withCopies(bookCatalog.get(book.getIsbn()), bookItems.size(), shelf.size());
+        eventBus.publish(new LibraryEvent(branch, LibraryEvent.Type.BOOK_ADDED, book.getIsbn(), LibraryEvent.NONE,
+                                          LibraryEvent.NONE, shelf.size()));
         LOGGER.log(Level.INFO, "Added {0} copies of book: {1}", new Object[]{copies, book.getTitle()});
     }
     
     @Override
-    public void removeBook(String isbn) {
+    public synchronized void removeBook(String isbn) {
         if (inventory.containsKey(isbn)) {
             List<BookItem> items = inventory.get(isbn);
             
-            // Remove copies that are not currently checked out (Java 8 filter and remove)
-            List<BookItem> removableItems = items.stream()
-                .filter(item -> !currentCheckouts.containsKey(item.getId()))
-                .collect(Collectors.toList());
-            
-            items.removeAll(removableItems);
+            // Remove copies that are not currently checked out, i.e. everything on the shelf
+            items.removeIf(BookItem::isAvailable);
+            availableCopies.remove(isbn);
+            state = items.isEmpty()
+                    ? state.withoutBook(isbn)
+                    : state.withCopies(bookCatalog.get(isbn), items.size(), 0);
+            eventBus.publish(new LibraryEvent(branch, LibraryEvent.Type.BOOK_REMOVED, isbn, LibraryEvent.NONE,
+                                              LibraryEvent.NONE, 0));
 
             if (items.isEmpty()) {
                 inventory.remove(isbn);
-                bookCatalog.remove(isbn);
+                Book removed = bookCatalog.remove(isbn);
+                if (removed != null) {
+                    bookIndex.remove(removed);
+                    searchCache.invalidate(removed);
+                }
                 LOGGER.log(Level.INFO, "Book with ISBN {0} fully removed from catalog.", isbn);
             } else {
                 LOGGER.log(Level.WARNING, "Cannot remove all copies of ISBN {0}. {1} copies are still checked out.", 
@@ -90,54 +164,72 @@ public class LibraryServiceImpl implements LibraryService {
     }
     
     @Override
-    public void updateBook(String isbn, String newTitle, String newAuthor, Integer newYear) {
+    public synchronized void updateBook(String isbn, String newTitle, String newAuthor, Integer newYear) {
         // Note: ISBN is final, cannot be updated. Log warning as per initial design.
         LOGGER.log(Level.WARNING, "Book class is immutable (ISBN is final). Update functionality skipped for ISBN: {0}.", isbn);
     }
     
     @Override
-    public Optional<Book> findBookByIsbn(String isbn) {
+    public synchronized Optional<Book> findBookByIsbn(String isbn) {
         return Optional.ofNullable(bookCatalog.get(isbn));
     }
     
     @Override
     public List<Book> searchBooks(String query) {
-        final String lowerQuery = query.toLowerCase();
-        return bookCatalog.values().stream()
-            .filter(book -> book.getTitle().toLowerCase().contains(lowerQuery) ||
-                           book.getAuthor().toLowerCase().contains(lowerQuery) ||
-                           book.getIsbn().contains(lowerQuery))
-            .collect(Collectors.toList());
+        // Cache hits do not take the service lock; only the catalog scan does
+        return searchCache.get(query, lowerQuery -> {
+            synchronized (this) {
+                return bookCatalog.values().stream()
+                    .filter(book -> SearchResultCache.matches(book, lowerQuery))
+                    .collect(Collectors.toList());
+            }
+        });
+    }
+
+    @Override
+    public synchronized BookPage findBooksByPublicationYear(int fromYear, int toYear, Book after, int pageSize) {
+        return bookIndex.byPublicationYear(fromYear, toYear, after, pageSize);
     }
 
     @Override
-    public List<BookItem> getBookItems(String isbn) {
-        return inventory.getOrDefault(isbn, Collections.emptyList());
+    public synchronized BookPage findBooksByAuthor(String author, Book after, int pageSize) {
+        return bookIndex.byAuthor(author, after, pageSize);
     }
 
     @Override
-    public List<Book> getAllBooks() {
+    public synchronized List<BookItem> getBookItems(String isbn) {
+        return new ArrayList<>(inventory.getOrDefault(isbn, Collections.emptyList()));
+    }
+
+    @Override
+    public synchronized List<Book> getAllBooks() {
         return new ArrayList<>(bookCatalog.values());
     }
 
     // --- Patron Management ---
 
     @Override
-    public void addPatron(Patron patron) {
+    public synchronized void addPatron(Patron patron) {
         if (patrons.containsKey(patron.getId())) {
             LOGGER.log(Level.WARNING, "Patron with ID {0} already exists.", patron.getId());
         } else {
             patrons.put(patron.getId(), patron);
+            state = state.withPatron(toRecord(patron));
             LOGGER.log(Level.INFO, "Patron added: {0}", patron.getName());
         }
     }
     
     @Override
-    public void updatePatron(int id, String newName, String newContactInfo) {
+    public synchronized void updatePatron(int id, String newName, String newContactInfo) {
         Patron patron = patrons.get(id);
         if (patron != null) {
-            patron.setName(newName);
-            patron.setContactInfo(newContactInfo);
+            synchronized (patron) { // Readers in other branches see both fields change together
+                patron.setName(newName);
+                patron.setContactInfo(newContactInfo);
+            }
+            state = state.withPatron(toRecord(patron));
+            eventBus.publish(new LibraryEvent(branch, LibraryEvent.Type.PATRON_UPDATED, null, id, LibraryEvent.NONE,
+                                              LibraryEvent.NONE));
             LOGGER.log(Level.INFO, "Patron ID {0} updated.", id);
         } else {
             LOGGER.log(Level.WARNING, "Patron with ID {0} not found.", id);
@@ -145,17 +237,17 @@ public class LibraryServiceImpl implements LibraryService {
     }
     
     @Override
-    public Optional<Patron> findPatronById(int id) {
+    public synchronized Optional<Patron> findPatronById(int id) {
         return Optional.ofNullable(patrons.get(id));
     }
 
     @Override
-    public List<Patron> getAllPatrons() {
+    public synchronized List<Patron> getAllPatrons() {
         return new ArrayList<>(patrons.values());
     }
     
     @Override
-    public List<Transaction> getPatronHistory(int patronId) {
+    public synchronized List<Transaction> getPatronHistory(int patronId) {
         Patron patron = patrons.get(patronId);
         if (patron == null) {
             return Collections.emptyList();
@@ -166,23 +258,65 @@ public class LibraryServiceImpl implements LibraryService {
                 .collect(Collectors.toList());
     }
 
-    // --- Lending Process (Checkout and Return) ---
+    @Override
+    public synchronized List<Book> getMostBorrowedBooks(int limit) {
+        return popularity.top(limit, bookCatalog::containsKey).stream()
+                .map(entry -> bookCatalog.get(entry.getIsbn()))
+                .collect(Collectors.toList());
+    }
 
     @Override
-    public String checkoutBook(String isbn, int patronId) {
-        Patron patron = patrons.get(patronId);
-        if (patron == null) return "Error: Patron not found.";
+    public synchronized List<Book> getMostBorrowedBooks(String author, int limit) {
+        String normalized = BookIndex.normalizeAuthor(author);
+        return popularity.top(limit, isbn -> {
+                    Book book = bookCatalog.get(isbn);
+                    return book != null && BookIndex.normalizeAuthor(book.getAuthor()).equals(normalized);
+                }).stream()
+                .map(entry -> bookCatalog.get(entry.getIsbn()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized List<Book> recommend(String isbn, int limit) {
+        return coBorrowIndex.recommend(isbn, limit).stream()
+                .map(bookCatalog::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 
-        List<BookItem> availableCopies = inventory.getOrDefault(isbn, new ArrayList<BookItem>()).stream()
-            .filter(BookItem::isAvailable)
-            .collect(Collectors.toList());
+    // Recomputes the recommendation index from all patron histories (in parallel)
+    public void rebuildRecommendations() {
+        List<Patron> snapshotPatrons;
+        synchronized (this) {
+            snapshotPatrons = new ArrayList<>(patrons.values());
+        }
+        coBorrowIndex.rebuild(snapshotPatrons);
+    }
 
-        if (availableCopies.isEmpty()) {
-            return "Error: Book is out of stock or all copies are currently borrowed.";
+    // ISBNs of the patron's latest loans, up to the recommendation window
+    private List<String> recentIsbns(Patron patron) {
+        List<Transaction> history = patron.getRecentHistory(coBorrowIndex.getWindow());
+        List<String> recent = new ArrayList<>(history.size());
+        for (Transaction t : history) {
+            recent.add(t.getBook().getIsbn());
+        }
+        return recent;
+    }
+
+    // --- Lending Process (Checkout and Return) ---
+
+    @Override
+    public synchronized LoanResult checkout(String isbn, int patronId) {
+        Patron patron = lender(patronId);
+        if (patron == null) return LoanResult.failure(PATRON_NOT_FOUND);
+
+        ArrayDeque<BookItem> shelf = availableCopies.get(isbn);
+        if (shelf == null || shelf.isEmpty()) {
+            return LoanResult.failure(OUT_OF_STOCK);
         }
 
         // Get the first available copy
-        BookItem bookItem = availableCopies.get(0);
+        BookItem bookItem = shelf.pollFirst();
         bookItem.setAvailable(false); // Update inventory status
 
         // Create transaction using Factory Pattern
@@ -190,39 +324,52 @@ public class LibraryServiceImpl implements LibraryService {
         
         // Track the current checkout by BookItem ID
         currentCheckouts.put(bookItem.getId(), transaction);
-        patron.addTransaction(transaction); // Update patron history
+        openLoans.computeIfAbsent(new LoanKey(patronId, isbn), k -> new ArrayDeque<>()).addLast(bookItem);
+        synchronized (patron) {
+            // Together, so a concurrent CoBorrowIndex.rebuild() counts this loan once (see recordCheckout)
+            coBorrowIndex.recordCheckout(patronId, isbn, recentIsbns(patron));
+            patron.addTransaction(transaction); // Update patron history
+        }
+        popularity.record(isbn, transaction.getCheckoutDate());
+        state = state.withLoanOpened(new LoanRecord(nextLoanId++, bookItem.getId(), isbn, bookItem.getBook().getTitle(),
+                                                    patronId, transaction.getCheckoutDate(), null, 0.0),
+                                     shelf.size());
+        eventBus.publish(new LibraryEvent(branch, LibraryEvent.Type.LOAN_OPENED, isbn, patronId, bookItem.getId(),
+                                          shelf.size()));
 
         LOGGER.log(Level.INFO, "Checkout successful: {0} by Patron {1}", 
                    new Object[]{bookItem.getBook().getTitle(), patron.getName()});
-        return String.format("Success: Book '%s' (Item ID: %d) checked out by Patron '%s'. Due date: %s", 
-                             bookItem.getBook().getTitle(), bookItem.getId(), patron.getName(), 
-                             transaction.getCheckoutDate().plusDays(14));
+        String message = String.format("Success: Book '%s' (Item ID: %d) checked out by Patron '%s'. Due date: %s", 
+                                       bookItem.getBook().getTitle(), bookItem.getId(), patron.getName(), 
+                                       transaction.getDueDate());
+        return LoanResult.success(message, transaction, bookItem.getId());
     }
 
 	@Override
-    public String returnBook(String isbn, int patronId) {
-        Patron patron = patrons.get(patronId);
-        if (patron == null) return "Error: Patron not found.";
+    public synchronized LoanResult checkin(String isbn, int patronId) {
+        Patron patron = lender(patronId);
+        if (patron == null) return LoanResult.failure(PATRON_NOT_FOUND);
 
-        // Find the active transaction for this patron and book
-        Optional<Transaction> transactionOpt = currentCheckouts.values().stream()
-            .filter(t -> t.getPatron().getId() == patronId && 
-                         t.getBook().getIsbn().equals(isbn))
-            .findFirst();
+        // Find the active checkout (oldest copy lent) for this patron and book
+        LoanKey loanKey = new LoanKey(patronId, isbn);
+        ArrayDeque<BookItem> lent = openLoans.get(loanKey);
+        if (lent == null) {
+            return LoanResult.failure(NO_ACTIVE_CHECKOUT);
+        }
 
-        if (transactionOpt.empty() != null) {
-            return "Error: No active checkout found for this book and patron combination.";
+        BookItem returnedItem = lent.pollFirst();
+        if (lent.isEmpty()) {
+            openLoans.remove(loanKey);
         }
+        long bookItemId = returnedItem.getId();
+        Transaction transaction = currentCheckouts.get(bookItemId);
 
-        Transaction transaction = transactionOpt.get();
-        
-        // Find the corresponding BookItem to set availability
-        Optional<BookItem> returnedItemOpt = inventory.getOrDefault(isbn, new ArrayList<BookItem>()).stream()
-            .filter(item -> item.getBook().equals(transaction.getBook()))
-            .findFirst();
-        
-        if (returnedItemOpt.isPresent()) {
-            returnedItemOpt.get().setAvailable(true); // Update inventory
+        // Put the copy back on the shelf, unless the book was removed from the catalog meanwhile
+        returnedItem.setAvailable(true); // Update inventory
+        ArrayDeque<BookItem> shelf = null;
+        if (inventory.containsKey(isbn)) {
+            shelf = availableCopies.computeIfAbsent(isbn, k -> new ArrayDeque<>());
+            shelf.addLast(returnedItem);
         }
 
         // Complete the transaction
@@ -232,29 +379,88 @@ public class LibraryServiceImpl implements LibraryService {
         double fine = fineStrategy.calculateFine(transaction.getCheckoutDate(), transaction.getReturnDate());
         transaction.setFineAmount(fine);
         
-        // Remove from current checkouts: Find the key (BookItem ID) for the transaction
-        Integer bookItemIdToRemove = currentCheckouts.entrySet().stream()
-                .filter(entry -> entry.getValue().equals(transaction))
-                .map(Map.Entry::getKey)
-                .findFirst()
-                .orElse(null);
-
-        if (bookItemIdToRemove != null) {
-            currentCheckouts.remove(bookItemIdToRemove);
-        }
+        currentCheckouts.remove(bookItemId);
+        LoanRecord loan = state.openLoans.get(bookItemId);
+        state = state.withLoanClosed(loan.returned(transaction.getReturnDate(), fine), shelf == null ? 0 : shelf.size());
+        eventBus.publish(new LibraryEvent(branch, LibraryEvent.Type.LOAN_CLOSED, isbn, patronId, bookItemId,
+                                          shelf == null ? 0 : shelf.size()));
 
         LOGGER.log(Level.INFO, "Return successful: {0} by Patron {1}. Fine: ${2}", 
                    new Object[]{transaction.getBook().getTitle(), patron.getName(), fine});
         
         String fineMessage = fine > 0 ? String.format("A fine of $%.2f was assessed.", fine) : "No fine assessed.";
-        return String.format("Success: Book '%s' returned by Patron '%s'. %s", 
-                             transaction.getBook().getTitle(), patron.getName(), fineMessage);
+        String message = String.format("Success: Book '%s' returned by Patron '%s'. %s", 
+                                       transaction.getBook().getTitle(), patron.getName(), fineMessage);
+        return LoanResult.success(message, transaction, bookItemId);
     }
     
+    // Checkout for a patron registered with another branch
+    synchronized LoanResult checkout(String isbn, Patron visitor) {
+        if (!patrons.containsKey(visitor.getId())) {
+            visitors.putIfAbsent(visitor.getId(), visitor);
+        }
+        return checkout(isbn, visitor.getId());
+    }
+
+    private Patron lender(int patronId) {
+        Patron patron = patrons.get(patronId);
+        return patron != null ? patron : visitors.get(patronId);
+    }
+
+    // Key of the open loan indexes (also used by ShardedLibraryService)
+    static final class LoanKey {
+        private final int patronId;
+        private final String isbn;
+
+        LoanKey(int patronId, String isbn) {
+            this.patronId = patronId;
+            this.isbn = isbn;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            LoanKey loanKey = (LoanKey) o;
+            return patronId == loanKey.patronId && isbn.equals(loanKey.isbn);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * patronId + isbn.hashCode();
+        }
+    }
+
+    // --- Change Events ---
+
+    @Override
+    public LibraryEventBus.Subscription subscribe(LibraryEventListener listener) {
+        return eventBus.subscribe(listener);
+    }
+
     // --- Inventory Management ---
     
     @Override
-    public List<Transaction> getBorrowedBooks() {
+    public synchronized List<Transaction> getBorrowedBooks() {
         return new ArrayList<>(currentCheckouts.values());
     }
-}
\ No newline at end of file
+
+    // --- Reporting Snapshots ---
+
+    // O(1) and lock-free: the snapshot wraps the current immutable state
+    @Override
+    public LibrarySnapshot getSnapshot() {
+        return LibrarySnapshot.of(state);
+    }
+
+    // Current immutable state, for composing multi-branch snapshots
+    LibraryState getState() {
+        return state;
+    }
+
+    private static PatronRecord toRecord(Patron patron) {
+        synchronized (patron) {
+            return new PatronRecord(patron.getId(), patron.getName(), patron.getContactInfo());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package main.java.com.library.service;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+import main.java.com.library.model.Book;
+import main.java.com.library.model.Transaction;
+
+// Immutable, point-in-time view of catalog, inventory counts, patrons and loans (for reporting/export).
+// Holds only immutable values (Book, PatronRecord, LoanRecord) from one published version of each service, so
+// later checkouts, returns or patron updates never show through. Taking one is O(1); iteration is lazy.
+// A ShardedLibraryService snapshot holds one part per branch, all captured at the same instant.
+public final class LibrarySnapshot {
+    // One state per branch (a single one for LibraryServiceImpl)
+    private final List<LibraryState> parts;
+
+    LibrarySnapshot(List<LibraryState> parts) {
+        this.parts = parts;
+    }
+
+    static LibrarySnapshot of(LibraryState state) {
+        return new LibrarySnapshot(Collections.singletonList(state));
+    }
+
+    // Sum of the part versions. Parts are captured together and each only moves forward, so this grows with
+    // every change anywhere: later snapshots of the same service have a higher version
+    public long getVersion() {
+        long version = 0;
+        for (LibraryState part : parts) {
+            version += part.version;
+        }
+        return version;
+    }
+
+    // A book held by several branches is listed once
+    public Iterable<Book> getBooks() {
+        return acrossParts(part -> part.books.values(), (part, book) -> part.books.containsKey(book.getIsbn()));
+    }
+
+    // A patron registered with several branches is listed once
+    public Iterable<PatronRecord> getPatrons() {
+        return acrossParts(part -> part.patrons.values(), (part, patron) -> part.patrons.containsKey(patron.getId()));
+    }
+
+    public Iterable<LoanRecord> getOpenLoans() {
+        return acrossParts(part -> part.openLoans.values(), null);
+    }
+
+    // Every loan, open or returned
+    public Iterable<LoanRecord> getLoans() {
+        return acrossParts(part -> part.loans.values(), null);
+    }
+
+    public Book getBook(String isbn) {
+        for (LibraryState part : parts) {
+            Book book = part.books.get(isbn);
+            if (book != null) return book;
+        }
+        return null;
+    }
+
+    public PatronRecord getPatron(int id) {
+        for (LibraryState part : parts) {
+            PatronRecord patron = part.patrons.get(id);
+            if (patron != null) return patron;
+        }
+        return null;
+    }
+
+    public int getTotalCopies(String isbn) {
+        int total = 0;
+        for (LibraryState part : parts) {
+            LibraryState.CopyCount count = part.copies.get(isbn);
+            if (count != null) total += count.total;
+        }
+        return total;
+    }
+
+    public int getAvailableCopies(String isbn) {
+        int available = 0;
+        for (LibraryState part : parts) {
+            LibraryState.CopyCount count = part.copies.get(isbn);
+            if (count != null) available += count.available;
+        }
+        return available;
+    }
+
+    public int getOpenLoanCount() {
+        int count = 0;
+        for (LibraryState part : parts) {
+            count += part.openLoans.size();
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Snapshot v%d: %d branch(es), %d open loans", getVersion(), parts.size(), getOpenLoanCount());
+    }
+
+    // Chains the view of every part; an element is skipped if seenInEarlier reports it in a preceding part
+    private <T> Iterable<T> acrossParts(Function<LibraryState, Iterable<T>> view,
+                                        BiPredicate<LibraryState, T> seenInEarlier) {
+        return () -> new Iterator<T>() {
+            private int part = 0;
+            private Iterator<T> current = view.apply(parts.get(0)).iterator();
+            private T next = advance();
+
+            private T advance() {
+                while (true) {
+                    while (current.hasNext()) {
+                        T candidate = current.next();
+                        if (!isDuplicate(candidate)) return candidate;
+                    }
+                    if (++part == parts.size()) return null;
+                    current = view.apply(parts.get(part)).iterator();
+                }
+            }
+
+            private boolean isDuplicate(T candidate) {
+                if (seenInEarlier == null) return false;
+                for (int i = 0; i < part; i++) {
+                    if (seenInEarlier.test(parts.get(i), candidate)) return true;
+                }
+                return false;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (next == null) throw new NoSuchElementException();
+                T result = next;
+                next = advance();
+                return result;
+            }
+        };
+    }
+
+    // Patron details as of the snapshot
+    public static final class PatronRecord {
+        private final int id;
+        private final String name;
+        private final String contactInfo;
+
+        PatronRecord(int id, String name, String contactInfo) {
+            this.id = id;
+            this.name = name;
+            this.contactInfo = contactInfo;
+        }
+
+        // Getters
+        public int getId() { return id; }
+        public String getName() { return name; }
+        public String getContactInfo() { return contactInfo; }
+    }
+
+    // One loan as of the snapshot; returnDate is null while the copy is still out
+    public static final class LoanRecord {
+        private final long loanId;
+        private final long itemId;
+        private final String isbn;
+        private final String title;
+        private final int patronId;
+        private final LocalDate checkoutDate;
+        private final LocalDate returnDate;
+        private final double fineAmount;
+
+        LoanRecord(long loanId, long itemId, String isbn, String title, int patronId, LocalDate checkoutDate,
+                   LocalDate returnDate, double fineAmount) {
+            this.loanId = loanId;
+            this.itemId = itemId;
+            this.isbn = isbn;
+            this.title = title;
+            this.patronId = patronId;
+            this.checkoutDate = checkoutDate;
+            this.returnDate = returnDate;
+            this.fineAmount = fineAmount;
+        }
+
+        LoanRecord returned(LocalDate returnDate, double fineAmount) {
+            return new LoanRecord(loanId, itemId, isbn, title, patronId, checkoutDate, returnDate, fineAmount);
+        }
+
+        // Getters
+        public long getLoanId() { return loanId; }
+        public long getItemId() { return itemId; }
+        public String getIsbn() { return isbn; }
+        public String getTitle() { return title; }
+        public int getPatronId() { return patronId; }
+        public LocalDate getCheckoutDate() { return checkoutDate; }
+        public LocalDate getReturnDate() { return returnDate; }
+        public double getFineAmount() { return fineAmount; }
+        public LocalDate getDueDate() { return checkoutDate.plusDays(Transaction.LOAN_PERIOD_DAYS); }
+
+        public boolean isReturned() {
+            return returnDate != null;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package main.java.com.library.service;
+
+import main.java.com.library.model.Book;
+import main.java.com.library.service.LibrarySnapshot.LoanRecord;
+import main.java.com.library.service.LibrarySnapshot.PatronRecord;
+
+// One published version of a LibraryServiceImpl's reportable state, built only from immutable values.
+// Every mutation derives the next version in O(log n) through persistent maps, so publishing it is a single
+// volatile write and earlier versions stay valid for readers that still hold them.
+final class LibraryState {
+    static final LibraryState EMPTY = new LibraryState(0, PersistentMap.empty(), PersistentMap.empty(),
+            PersistentMap.empty(), PersistentMap.empty(), PersistentMap.empty());
+
+    final long version;
+    // ISBN -> Book
+    final PersistentMap<String, Book> books;
+    // ISBN -> {total, available} copies
+    final PersistentMap<String, CopyCount> copies;
+    // Patron ID -> name and contact as of this version
+    final PersistentMap<Integer, PatronRecord> patrons;
+    // Loan ID -> every loan made by this service, open or returned
+    final PersistentMap<Long, LoanRecord> loans;
+    // BookItem ID -> open loan
+    final PersistentMap<Long, LoanRecord> openLoans;
+
+    private LibraryState(long version, PersistentMap<String, Book> books, PersistentMap<String, CopyCount> copies,
+                         PersistentMap<Integer, PatronRecord> patrons, PersistentMap<Long, LoanRecord> loans,
+                         PersistentMap<Long, LoanRecord> openLoans) {
+        this.version = version;
+        this.books = books;
+        this.copies = copies;
+        this.patrons = patrons;
+        this.loans = loans;
+        this.openLoans = openLoans;
+    }
+
+    LibraryState withCopies(Book book, int total, int available) {
+        return new LibraryState(version + 1, books.plus(book.getIsbn(), book),
+                copies.plus(book.getIsbn(), new CopyCount(total, available)), patrons, loans, openLoans);
+    }
+
+    LibraryState withoutBook(String isbn) {
+        return new LibraryState(version + 1, books.minus(isbn), copies.minus(isbn), patrons, loans, openLoans);
+    }
+
+    LibraryState withPatron(PatronRecord patron) {
+        return new LibraryState(version + 1, books, copies, patrons.plus(patron.getId(), patron), loans, openLoans);
+    }
+
+    LibraryState withLoanOpened(LoanRecord loan, int available) {
+        return new LibraryState(version + 1, books, withAvailable(loan.getIsbn(), available), patrons,
+                loans.plus(loan.getLoanId(), loan), openLoans.plus(loan.getItemId(), loan));
+    }
+
+    LibraryState withLoanClosed(LoanRecord loan, int available) {
+        return new LibraryState(version + 1, books, withAvailable(loan.getIsbn(), available), patrons,
+                loans.plus(loan.getLoanId(), loan), openLoans.minus(loan.getItemId()));
+    }
+
+    private PersistentMap<String, CopyCount> withAvailable(String isbn, int available) {
+        CopyCount count = copies.get(isbn);
+        return count == null ? copies : copies.plus(isbn, new CopyCount(count.total, available));
+    }
+
+    static final class CopyCount {
+        final int total;
+        final int available;
+
+        CopyCount(int total, int available) {
+            this.total = total;
+            this.available = available;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package main.java.com.library.service;
+
+import main.java.com.library.model.Transaction;
+
+// Outcome of a checkout or return: the loan's transaction and copy on success, the reason on failure.
+// getMessage() is the same "Success: ..." / "Error: ..." text returned by checkoutBook/returnBook.
+public final class LoanResult {
+    private final String message;
+    private final Transaction transaction;
+    private final long itemId;
+
+    private LoanResult(String message, Transaction transaction, long itemId) {
+        this.message = message;
+        this.transaction = transaction;
+        this.itemId = itemId;
+    }
+
+    static LoanResult success(String message, Transaction transaction, long itemId) {
+        return new LoanResult(message, transaction, itemId);
+    }
+
+    static LoanResult failure(String message) {
+        return new LoanResult(message, null, -1);
+    }
+
+    // Getters
+    public boolean isSuccess() { return transaction != null; }
+    public String getMessage() { return message; }
+    // null on failure
+    public Transaction getTransaction() { return transaction; }
+    // -1 on failure
+    public long getItemId() { return itemId; }
+}
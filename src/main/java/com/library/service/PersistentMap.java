@@ -0,0 +1,324 @@
+package main.java.com.library.service;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// Immutable hash map (hash array mapped trie). plus/minus return a new map sharing all untouched nodes with the
+// old one, so an update costs O(log32 n) and every older version stays valid for readers that still hold it.
+// Used to publish LibraryService state as snapshots without copying.
+final class PersistentMap<K, V> implements Iterable<Map.Entry<K, V>> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    // Root is null (empty) or a BitmapNode; slots hold Leaf, Collision or BitmapNode
+    private final BitmapNode root;
+    private final int size;
+
+    private PersistentMap(BitmapNode root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    int size() { return size; }
+    boolean isEmpty() { return size == 0; }
+
+    boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    // Values are never null
+    @SuppressWarnings("unchecked")
+    V get(K key) {
+        int hash = hash(key);
+        Object node = root;
+        int shift = 0;
+        while (node != null) {
+            if (node instanceof Leaf) {
+                Leaf leaf = (Leaf) node;
+                return leaf.hash == hash && leaf.getKey().equals(key) ? (V) leaf.getValue() : null;
+            }
+            if (node instanceof Collision) {
+                for (Leaf leaf : ((Collision) node).leaves) {
+                    if (leaf.getKey().equals(key)) return (V) leaf.getValue();
+                }
+                return null;
+            }
+            BitmapNode bitmapNode = (BitmapNode) node;
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmapNode.bitmap & bit) == 0) return null;
+            node = bitmapNode.slots[Integer.bitCount(bitmapNode.bitmap & (bit - 1))];
+            shift += BITS;
+        }
+        return null;
+    }
+
+    PersistentMap<K, V> plus(K key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported.");
+        }
+        Leaf leaf = new Leaf(hash(key), key, value);
+        boolean[] added = new boolean[1];
+        BitmapNode newRoot = root == null
+                ? new BitmapNode(1 << (leaf.hash & MASK), new Object[] { leaf })
+                : (BitmapNode) put(root, 0, leaf, added);
+        if (root == null) added[0] = true;
+        return newRoot == root ? this : new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    PersistentMap<K, V> minus(K key) {
+        if (root == null) return this;
+        Object newRoot = remove(root, 0, hash(key), key);
+        if (newRoot == root) return this;
+        if (newRoot == null) return empty();
+        // A collapsed root (single leaf or collision) is wrapped back into a bitmap node
+        if (!(newRoot instanceof BitmapNode)) {
+            newRoot = new BitmapNode(1 << (hashOf(newRoot) & MASK), new Object[] { newRoot });
+        }
+        return new PersistentMap<>((BitmapNode) newRoot, size - 1);
+    }
+
+    // Lazy, allocation-free per element (beyond the iterator itself)
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+    }
+
+    Iterable<V> values() {
+        return () -> {
+            Iterator<Map.Entry<K, V>> entries = iterator();
+            return new Iterator<V>() {
+                @Override
+                public boolean hasNext() { return entries.hasNext(); }
+
+                @Override
+                public V next() { return entries.next().getValue(); }
+            };
+        };
+    }
+
+    // --- Trie operations ---
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int hashOf(Object node) {
+        return node instanceof Leaf ? ((Leaf) node).hash : ((Collision) node).hash;
+    }
+
+    private static Object put(Object node, int shift, Leaf leaf, boolean[] added) {
+        if (node instanceof Leaf) {
+            Leaf existing = (Leaf) node;
+            if (existing.hash == leaf.hash && existing.getKey().equals(leaf.getKey())) {
+                return existing.getValue() == leaf.getValue() ? existing : leaf;
+            }
+            added[0] = true;
+            return existing.hash == leaf.hash
+                    ? new Collision(leaf.hash, new Leaf[] { existing, leaf })
+                    : merge(existing, leaf, shift);
+        }
+        if (node instanceof Collision) {
+            Collision collision = (Collision) node;
+            if (collision.hash != leaf.hash) {
+                added[0] = true;
+                return merge(collision, leaf, shift);
+            }
+            Leaf[] leaves = collision.leaves;
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].getKey().equals(leaf.getKey())) {
+                    Leaf[] copy = leaves.clone();
+                    copy[i] = leaf;
+                    return new Collision(collision.hash, copy);
+                }
+            }
+            Leaf[] copy = new Leaf[leaves.length + 1];
+            System.arraycopy(leaves, 0, copy, 0, leaves.length);
+            copy[leaves.length] = leaf;
+            added[0] = true;
+            return new Collision(collision.hash, copy);
+        }
+
+        BitmapNode bitmapNode = (BitmapNode) node;
+        int bit = 1 << ((leaf.hash >>> shift) & MASK);
+        int index = Integer.bitCount(bitmapNode.bitmap & (bit - 1));
+        if ((bitmapNode.bitmap & bit) == 0) {
+            Object[] slots = new Object[bitmapNode.slots.length + 1];
+            System.arraycopy(bitmapNode.slots, 0, slots, 0, index);
+            slots[index] = leaf;
+            System.arraycopy(bitmapNode.slots, index, slots, index + 1, bitmapNode.slots.length - index);
+            added[0] = true;
+            return new BitmapNode(bitmapNode.bitmap | bit, slots);
+        }
+        Object child = bitmapNode.slots[index];
+        Object newChild = put(child, shift + BITS, leaf, added);
+        if (newChild == child) return bitmapNode;
+        Object[] slots = bitmapNode.slots.clone();
+        slots[index] = newChild;
+        return new BitmapNode(bitmapNode.bitmap, slots);
+    }
+
+    // Builds the smallest subtree holding two leaf-level nodes with different hashes
+    private static Object merge(Object a, Object b, int shift) {
+        int hashA = hashOf(a);
+        int hashB = hashOf(b);
+        int indexA = (hashA >>> shift) & MASK;
+        int indexB = (hashB >>> shift) & MASK;
+        if (indexA == indexB) {
+            return new BitmapNode(1 << indexA, new Object[] { merge(a, b, shift + BITS) });
+        }
+        Object[] slots = indexA < indexB ? new Object[] { a, b } : new Object[] { b, a };
+        return new BitmapNode((1 << indexA) | (1 << indexB), slots);
+    }
+
+    // Returns the same node if the key is absent, null if the subtree became empty
+    private static Object remove(Object node, int shift, int hash, Object key) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            return leaf.hash == hash && leaf.getKey().equals(key) ? null : leaf;
+        }
+        if (node instanceof Collision) {
+            Collision collision = (Collision) node;
+            Leaf[] leaves = collision.leaves;
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].getKey().equals(key)) {
+                    if (leaves.length == 2) return leaves[1 - i];
+                    Leaf[] copy = new Leaf[leaves.length - 1];
+                    System.arraycopy(leaves, 0, copy, 0, i);
+                    System.arraycopy(leaves, i + 1, copy, i, leaves.length - i - 1);
+                    return new Collision(collision.hash, copy);
+                }
+            }
+            return collision;
+        }
+
+        BitmapNode bitmapNode = (BitmapNode) node;
+        int bit = 1 << ((hash >>> shift) & MASK);
+        if ((bitmapNode.bitmap & bit) == 0) return bitmapNode;
+        int index = Integer.bitCount(bitmapNode.bitmap & (bit - 1));
+        Object child = bitmapNode.slots[index];
+        Object newChild = remove(child, shift + BITS, hash, key);
+        if (newChild == child) return bitmapNode;
+
+        if (newChild == null) {
+            if (bitmapNode.slots.length == 1) return null;
+            Object[] slots = new Object[bitmapNode.slots.length - 1];
+            System.arraycopy(bitmapNode.slots, 0, slots, 0, index);
+            System.arraycopy(bitmapNode.slots, index + 1, slots, index, slots.length - index);
+            BitmapNode shrunk = new BitmapNode(bitmapNode.bitmap & ~bit, slots);
+            // A lone leaf needs no bitmap node of its own: let the parent hold it directly
+            return slots.length == 1 && !(slots[0] instanceof BitmapNode) ? slots[0] : shrunk;
+        }
+        if (bitmapNode.slots.length == 1 && !(newChild instanceof BitmapNode)) {
+            return newChild;
+        }
+        Object[] slots = bitmapNode.slots.clone();
+        slots[index] = newChild;
+        return new BitmapNode(bitmapNode.bitmap, slots);
+    }
+
+    // --- Nodes ---
+
+    private static final class Leaf extends AbstractMap.SimpleImmutableEntry<Object, Object> {
+        private static final long serialVersionUID = 1L;
+        final int hash;
+
+        Leaf(int hash, Object key, Object value) {
+            super(key, value);
+            this.hash = hash;
+        }
+    }
+
+    private static final class Collision {
+        final int hash;
+        final Leaf[] leaves;
+
+        Collision(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+    }
+
+    private static final class BitmapNode {
+        final int bitmap;
+        final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    // Depth-first walk with an explicit stack (the trie is at most 7 levels deep)
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Object[][] stack = new Object[8][];
+        private final int[] positions = new int[8];
+        private int depth = -1;
+        private Leaf[] collision;
+        private int collisionPosition;
+        private Leaf next;
+
+        EntryIterator(BitmapNode root) {
+            if (root != null) {
+                stack[0] = root.slots;
+                depth = 0;
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (next == null) throw new NoSuchElementException();
+            Leaf result = next;
+            advance();
+            return (Map.Entry<K, V>) (Map.Entry<?, ?>) result;
+        }
+
+        private void advance() {
+            next = null;
+            if (collision != null) {
+                if (collisionPosition < collision.length) {
+                    next = collision[collisionPosition++];
+                    return;
+                }
+                collision = null;
+            }
+            while (depth >= 0) {
+                Object[] slots = stack[depth];
+                if (positions[depth] == slots.length) {
+                    positions[depth] = 0;
+                    depth--;
+                    continue;
+                }
+                Object slot = slots[positions[depth]++];
+                if (slot instanceof Leaf) {
+                    next = (Leaf) slot;
+                    return;
+                }
+                if (slot instanceof Collision) {
+                    collision = ((Collision) slot).leaves;
+                    collisionPosition = 1;
+                    next = collision[0];
+                    return;
+                }
+                depth++;
+                stack[depth] = ((BitmapNode) slot).slots;
+                positions[depth] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package main.java.com.library.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Streaming "most borrowed" tracker over a sliding window of days.
+// Each day bucket holds a count-min sketch (frequency estimates) and a Space-Saving top-k summary (candidates),
+// so memory is bounded by windowDays * (sketch + capacity) no matter how many loans are recorded.
+// Counts are estimates: never below the true count, and exact for titles that stay within the top capacity.
+// Thread-safe; give each lock domain (e.g. each branch) its own tracker and merge them with top(trackers, ...).
+public class PopularityTracker {
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 1 << 12;
+
+    private final Bucket[] buckets;
+    private final int capacity;
+
+    public PopularityTracker() {
+        this(7, 1024);
+    }
+
+    public PopularityTracker(int windowDays, int capacity) {
+        if (windowDays <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Window and capacity must be positive.");
+        }
+        this.buckets = new Bucket[windowDays];
+        this.capacity = capacity;
+    }
+
+    // O(sketch depth + log capacity) per loan
+    public synchronized void record(String isbn, LocalDate date) {
+        long day = date.toEpochDay();
+        int index = (int) Math.floorMod(day, (long) buckets.length);
+        Bucket bucket = buckets[index];
+        if (bucket == null || bucket.day != day) {
+            if (bucket != null && bucket.day > day) {
+                return; // Older than the window
+            }
+            bucket = new Bucket(day, capacity);
+            buckets[index] = bucket;
+        }
+        bucket.sketch.add(isbn);
+        bucket.topK.offer(isbn);
+    }
+
+    // Top n ISBNs in the window ending today, most borrowed first, restricted to ISBNs accepted by the filter
+    public List<Entry> top(int n, Predicate<String> filter) {
+        return top(n, filter, LocalDate.now());
+    }
+
+    public List<Entry> top(int n, Predicate<String> filter, LocalDate today) {
+        return top(Collections.singletonList(this), n, filter, today);
+    }
+
+    // Ranks the loans of several trackers (e.g. one per branch) as if they had been recorded in one.
+    // Each tracker is locked only while its candidates and estimates are read, never across trackers.
+    public static List<Entry> top(Collection<PopularityTracker> trackers, int n, Predicate<String> filter,
+                                  LocalDate today) {
+        long lastDay = today.toEpochDay();
+        Set<String> candidates = new HashSet<>();
+        for (PopularityTracker tracker : trackers) {
+            tracker.addCandidates(candidates, lastDay);
+        }
+        candidates.removeIf(isbn -> !filter.test(isbn));
+
+        Map<String, Long> counts = new HashMap<>(candidates.size() * 2);
+        for (PopularityTracker tracker : trackers) {
+            tracker.addEstimates(candidates, counts, lastDay);
+        }
+        List<Entry> entries = new ArrayList<>(counts.size());
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            entries.add(new Entry(count.getKey(), count.getValue()));
+        }
+        entries.sort((a, b) -> Long.compare(b.count, a.count));
+        return entries.size() > n ? new ArrayList<>(entries.subList(0, n)) : entries;
+    }
+
+    private synchronized void addCandidates(Set<String> candidates, long lastDay) {
+        long firstDay = lastDay - buckets.length + 1;
+        for (Bucket bucket : buckets) {
+            if (bucket != null && bucket.day >= firstDay && bucket.day <= lastDay) {
+                candidates.addAll(bucket.topK.counters.keySet());
+            }
+        }
+    }
+
+    private synchronized void addEstimates(Set<String> candidates, Map<String, Long> counts, long lastDay) {
+        long firstDay = lastDay - buckets.length + 1;
+        for (Bucket bucket : buckets) {
+            if (bucket != null && bucket.day >= firstDay && bucket.day <= lastDay) {
+                for (String isbn : candidates) {
+                    counts.merge(isbn, bucket.sketch.estimate(isbn), Long::sum);
+                }
+            }
+        }
+    }
+
+    public static final class Entry {
+        private final String isbn;
+        private final long count;
+
+        Entry(String isbn, long count) {
+            this.isbn = isbn;
+            this.count = count;
+        }
+
+        public String getIsbn() { return isbn; }
+        public long getCount() { return count; }
+
+        @Override
+        public String toString() {
+            return isbn + "=" + count;
+        }
+    }
+
+    private static final class Bucket {
+        final long day;
+        final CountMinSketch sketch = new CountMinSketch();
+        final SpaceSaving topK;
+
+        Bucket(long day, int capacity) {
+            this.day = day;
+            this.topK = new SpaceSaving(capacity);
+        }
+    }
+
+    private static final class CountMinSketch {
+        private final long[][] counts = new long[SKETCH_DEPTH][SKETCH_WIDTH];
+
+        void add(String key) {
+            int h = key.hashCode();
+            for (int row = 0; row < SKETCH_DEPTH; row++) {
+                counts[row][slot(h, row)]++;
+            }
+        }
+
+        long estimate(String key) {
+            int h = key.hashCode();
+            long min = Long.MAX_VALUE;
+            for (int row = 0; row < SKETCH_DEPTH; row++) {
+                min = Math.min(min, counts[row][slot(h, row)]);
+            }
+            return min;
+        }
+
+        // Independent-ish hash per row: remix the key hash with a per-row odd multiplier
+        private static int slot(int hash, int row) {
+            int h = hash * (0x9E3779B1 + 2 * row) ^ (hash >>> (16 - row));
+            h ^= h >>> 15;
+            return h & (SKETCH_WIDTH - 1);
+        }
+    }
+
+    // Space-Saving: fixed set of counters kept in a min-heap; an unseen key replaces the minimum counter
+    private static final class SpaceSaving {
+        private final Map<String, Counter> counters;
+        private final Counter[] heap;
+        private int size;
+
+        SpaceSaving(int capacity) {
+            this.counters = new HashMap<>(capacity * 2);
+            this.heap = new Counter[capacity];
+        }
+
+        void offer(String key) {
+            Counter counter = counters.get(key);
+            if (counter == null) {
+                if (size < heap.length) {
+                    counter = new Counter(key, size);
+                    heap[size++] = counter;
+                    counters.put(key, counter);
+                    siftUp(counter.index);
+                } else {
+                    counter = heap[0];
+                    counters.remove(counter.key);
+                    counter.key = key;
+                    counters.put(key, counter);
+                }
+            }
+            counter.count++;
+            siftDown(counter.index);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent].count <= heap[i].count) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) break;
+                int smallest = left + 1 < size && heap[left + 1].count < heap[left].count ? left + 1 : left;
+                if (heap[i].count <= heap[smallest].count) break;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            Counter tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+            heap[a].index = a;
+            heap[b].index = b;
+        }
+    }
+
+    private static final class Counter {
+        String key;
+        long count;
+        int index;
+
+        Counter(String key, int index) {
+            this.key = key;
+            this.index = index;
+        }
+    }
+}
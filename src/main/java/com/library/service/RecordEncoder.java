@@ -0,0 +1,190 @@
+package main.java.com.library.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Buffered CSV / JSON-lines encoder writing UTF-8 straight to a channel.
+// The char and byte buffers are reused for every record, so memory stays constant regardless of row count.
+// Both are array-backed so the UTF-8 encoder runs its array loop rather than the per-char buffer path.
+public class RecordEncoder implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final ExportFormat format;
+    private final String[] columns;
+    private char[] chars = new char[BUFFER_SIZE];
+    private int length;
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private int column;
+    private long recordCount;
+
+    public RecordEncoder(WritableByteChannel channel, ExportFormat format, String... columns) throws IOException {
+        this.channel = channel;
+        this.format = format;
+        this.columns = columns.clone();
+        if (format == ExportFormat.CSV) {
+            for (String name : columns) {
+                value(name);
+            }
+            endLine();
+        }
+    }
+
+    public RecordEncoder value(String value) throws IOException {
+        startValue();
+        if (value == null) {
+            if (format == ExportFormat.JSON_LINES) append("null");
+        } else if (format == ExportFormat.CSV) {
+            appendCsv(value);
+        } else {
+            appendJson(value);
+        }
+        return this;
+    }
+
+    public RecordEncoder value(long value) throws IOException {
+        startValue();
+        append(Long.toString(value));
+        return this;
+    }
+
+    public RecordEncoder value(double value) throws IOException {
+        startValue();
+        append(Double.toString(value));
+        return this;
+    }
+
+    public void endRecord() throws IOException {
+        if (column != columns.length) {
+            throw new IllegalStateException("Expected " + columns.length + " values, got " + column + ".");
+        }
+        recordCount++;
+        endLine();
+    }
+
+    public long getRecordCount() { return recordCount; }
+
+    public void flush() throws IOException {
+        CharBuffer in = CharBuffer.wrap(chars, 0, length);
+        while (true) {
+            CoderResult result = encoder.encode(in, bytes, false);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                result.throwException();
+            }
+        }
+        // Keep a trailing high surrogate for the next round
+        length = in.remaining();
+        System.arraycopy(chars, in.position(), chars, 0, length);
+        drain();
+    }
+
+    // The channel is closed even if the final flush fails
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void startValue() {
+        if (column >= columns.length) {
+            throw new IllegalStateException("Too many values for " + columns.length + " columns.");
+        }
+        if (format == ExportFormat.CSV) {
+            if (column > 0) append(',');
+        } else {
+            append(column == 0 ? "{\"" : ",\"");
+            append(columns[column]);
+            append("\":");
+        }
+        column++;
+    }
+
+    private void endLine() throws IOException {
+        if (format == ExportFormat.JSON_LINES) append('}');
+        append('\n');
+        column = 0;
+        if (length >= BUFFER_SIZE / 2) {
+            flush();
+        }
+    }
+
+    private void append(char c) {
+        if (length == chars.length) grow(1);
+        chars[length++] = c;
+    }
+
+    private void append(String value) {
+        int n = value.length();
+        if (length + n > chars.length) grow(n);
+        value.getChars(0, n, chars, length);
+        length += n;
+    }
+
+    // Only a single record longer than the buffer gets here
+    private void grow(int extra) {
+        chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + extra));
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    private void appendCsv(String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            append(value);
+            return;
+        }
+        append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') append('"');
+            append(c);
+        }
+        append('"');
+    }
+
+    private void appendJson(String value) {
+        append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"': append("\\\""); break;
+            case '\\': append("\\\\"); break;
+            case '\n': append("\\n"); break;
+            case '\r': append("\\r"); break;
+            case '\t': append("\\t"); break;
+            default:
+                if (c < 0x20) {
+                    append(String.format("\\u%04x", (int) c));
+                } else {
+                    append(c);
+                }
+            }
+        }
+        append('"');
+    }
+}
@@ -0,0 +1,130 @@
+package main.java.com.library.service;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import main.java.com.library.model.Book;
+
+// Bounded LRU cache of normalized search query -> result list, used in front of LibraryService.searchBooks.
+// Evicts by entry count and by an estimated memory weight; invalidates only the queries a changed book matches.
+public class SearchResultCache {
+    // Rough per-entry and per-result costs (bytes) used for the memory bound
+    private static final long ENTRY_OVERHEAD = 96;
+    private static final long RESULT_REFERENCE = 8;
+
+    private final int maxEntries;
+    private final long maxWeight;
+    // Access-ordered, so iteration starts at the least recently used query
+    private final LinkedHashMap<String, List<Book>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    // Bumped on every invalidation so a search computed before a catalog change is not cached after it
+    private long generation;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long invalidationCount;
+
+    // Defaults: 1024 queries, ~16 MB
+    public SearchResultCache() {
+        this(1024, 16L * 1024 * 1024);
+    }
+
+    public SearchResultCache(int maxEntries, long maxWeightBytes) {
+        if (maxEntries <= 0 || maxWeightBytes <= 0) {
+            throw new IllegalArgumentException("Cache bounds must be positive.");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeightBytes;
+    }
+
+    // Normalization must match the search predicate (case-insensitive), see matches()
+    public static String normalize(String query) {
+        return query.toLowerCase();
+    }
+
+    // Same predicate as LibraryServiceImpl.searchBooks, applied to an already normalized query
+    public static boolean matches(Book book, String normalizedQuery) {
+        return book.getTitle().toLowerCase().contains(normalizedQuery) ||
+               book.getAuthor().toLowerCase().contains(normalizedQuery) ||
+               book.getIsbn().contains(normalizedQuery);
+    }
+
+    // Returns the cached result or computes, caches and returns it. The computation runs outside the lock.
+    public List<Book> get(String query, Function<String, List<Book>> search) {
+        String key = normalize(query);
+        long startGeneration;
+        synchronized (this) {
+            List<Book> cached = entries.get(key);
+            if (cached != null) {
+                hitCount++;
+                return cached;
+            }
+            missCount++;
+            startGeneration = generation;
+        }
+
+        List<Book> result = Collections.unmodifiableList(search.apply(key));
+
+        synchronized (this) {
+            if (generation == startGeneration && !entries.containsKey(key)) {
+                entries.put(key, result);
+                weight += weigh(key, result);
+                evictIfNeeded();
+            }
+        }
+        return result;
+    }
+
+    // Drops only the cached queries the added/removed book matches
+    public synchronized void invalidate(Book book) {
+        generation++;
+        Iterator<Map.Entry<String, List<Book>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, List<Book>> entry = it.next();
+            if (matches(book, entry.getKey())) {
+                weight -= weigh(entry.getKey(), entry.getValue());
+                it.remove();
+                invalidationCount++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+        weight = 0;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, List<Book>>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && it.hasNext()) {
+            Map.Entry<String, List<Book>> eldest = it.next();
+            weight -= weigh(eldest.getKey(), eldest.getValue());
+            it.remove();
+            evictionCount++;
+        }
+    }
+
+    private static long weigh(String key, List<Book> result) {
+        return ENTRY_OVERHEAD + 2L * key.length() + RESULT_REFERENCE * result.size();
+    }
+
+    // Metrics
+    public synchronized long getHitCount() { return hitCount; }
+    public synchronized long getMissCount() { return missCount; }
+    public synchronized long getEvictionCount() { return evictionCount; }
+    public synchronized long getInvalidationCount() { return invalidationCount; }
+    public synchronized int size() { return entries.size(); }
+    public synchronized long getEstimatedWeight() { return weight; }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("SearchResultCache[size=%d, weight=%d, hits=%d, misses=%d, evictions=%d, invalidations=%d]",
+                             entries.size(), weight, hitCount, missCount, evictionCount, invalidationCount);
+    }
+}
@@ -0,0 +1,589 @@
+package main.java.com.library.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import main.java.com.library.model.Book;
+import main.java.com.library.model.BookItem;
+import main.java.com.library.model.Patron;
+import main.java.com.library.model.Transaction;
+
+// Multi-branch LibraryService: inventory and loans are partitioned into one LibraryServiceImpl shard per branch,
+// each with its own lock, so branches never contend with each other.
+// Each patron is registered with one home branch; other branches only learn about a patron when lending to them.
+// Shared indexes route every lending call straight to the branches involved: ISBN -> branches holding it, and
+// (patron, ISBN) -> branches with an open loan. Cross-branch queries scatter to all shards in parallel.
+public class ShardedLibraryService implements LibraryService {
+    private static final Logger LOGGER = Logger.getLogger(ShardedLibraryService.class.getName());
+
+    // Branch name -> shard, in registration order
+    private final Map<String, LibraryServiceImpl> shards;
+    private final List<String> branchNames;
+    private final ExecutorService executor;
+    // ISBN -> Book and the branches holding it, for every ISBN held by at least one branch
+    private final Map<String, CatalogEntry> catalogIndex = new ConcurrentHashMap<>();
+    // Patron ID -> Patron and home branch
+    private final Map<Integer, Patron> patrons = new ConcurrentHashMap<>();
+    private final Map<Integer, String> homeBranches = new ConcurrentHashMap<>();
+    // (patron, ISBN) -> branches where that patron has an open loan of it, oldest first (immutable lists)
+    private final Map<LibraryServiceImpl.LoanKey, List<String>> loanBranches = new ConcurrentHashMap<>();
+    // One popularity tracker per shard (recorded under that shard's lock), merged at query time
+    private final List<PopularityTracker> popularity = new ArrayList<>();
+    // Shared by all shards so recommendations and events are library-wide
+    private final CoBorrowIndex coBorrowIndex = new CoBorrowIndex();
+    private final LibraryEventBus eventBus = new LibraryEventBus();
+
+    public ShardedLibraryService(String... branchNames) {
+        if (branchNames.length == 0) {
+            throw new IllegalArgumentException("At least one branch is required.");
+        }
+        Map<String, LibraryServiceImpl> map = new LinkedHashMap<>();
+        for (String name : branchNames) {
+            PopularityTracker tracker = new PopularityTracker();
+            LibraryServiceImpl shard =
+                    new LibraryServiceImpl(name, new SearchResultCache(), tracker, coBorrowIndex, eventBus);
+            if (map.put(name, shard) != null) {
+                throw new IllegalArgumentException("Duplicate branch: " + name);
+            }
+            popularity.add(tracker);
+        }
+        this.shards = Collections.unmodifiableMap(map);
+        this.branchNames = Collections.unmodifiableList(new ArrayList<>(map.keySet()));
+        this.executor = Executors.newFixedThreadPool(Math.min(branchNames.length, Runtime.getRuntime().availableProcessors()), r -> {
+            Thread t = new Thread(r, "library-shard-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // One shard per available core, named shard-0..shard-(n-1)
+    public static ShardedLibraryService perCore() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        String[] names = new String[cores];
+        for (int i = 0; i < cores; i++) {
+            names[i] = "shard-" + i;
+        }
+        return new ShardedLibraryService(names);
+    }
+
+    public List<String> getBranchNames() { return branchNames; }
+
+    // Branch-scoped view: catalog, inventory and loan queries cover this branch only; mutations go through this
+    // service, so the shared catalog index and home branches stay in sync
+    public LibraryService getBranch(String branch) {
+        return new BranchView(branch, shard(branch));
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        eventBus.shutdown();
+    }
+
+    // --- Branch-aware operations ---
+
+    // The branch's catalog membership is updated while its shard monitor is held, so it always matches the shard.
+    // Only the shard's own work runs under that monitor; index updates are single-key and never call into shards.
+    public void addBook(String branch, Book book, int copies) {
+        LibraryServiceImpl shard = shard(branch);
+        synchronized (shard) {
+            shard.addBook(book, copies);
+            catalogIndex.computeIfAbsent(book.getIsbn(), isbn -> new CatalogEntry(book)).branches.add(branch);
+        }
+    }
+
+    public void removeBook(String branch, String isbn) {
+        LibraryServiceImpl shard = shard(branch);
+        synchronized (shard) {
+            shard.removeBook(isbn);
+            if (!shard.findBookByIsbn(isbn).isPresent()) {
+                catalogIndex.computeIfPresent(isbn, (key, entry) -> {
+                    entry.branches.remove(branch);
+                    return entry.branches.isEmpty() ? null : entry;
+                });
+            }
+        }
+    }
+
+    // O(1): only the home branch stores the patron
+    public void addPatron(String homeBranch, Patron patron) {
+        LibraryServiceImpl home = shard(homeBranch);
+        if (homeBranches.putIfAbsent(patron.getId(), homeBranch) != null) {
+            LOGGER.log(Level.WARNING, "Patron with ID {0} already exists.", patron.getId());
+            return;
+        }
+        patrons.put(patron.getId(), patron);
+        home.addPatron(patron);
+    }
+
+    public String checkoutBook(String branch, String isbn, int patronId) {
+        return checkout(branch, isbn, patronId).getMessage();
+    }
+
+    public String returnBook(String branch, String isbn, int patronId) {
+        return checkin(branch, isbn, patronId).getMessage();
+    }
+
+    public LoanResult checkout(String branch, String isbn, int patronId) {
+        LibraryServiceImpl shard = shard(branch);
+        Patron patron = patrons.get(patronId);
+        return patron == null ? LoanResult.failure(LibraryServiceImpl.PATRON_NOT_FOUND)
+                              : checkout(branch, shard, isbn, patron);
+    }
+
+    public LoanResult checkin(String branch, String isbn, int patronId) {
+        LibraryServiceImpl shard = shard(branch);
+        return patrons.containsKey(patronId) ? checkin(branch, shard, isbn, patronId)
+                                             : LoanResult.failure(LibraryServiceImpl.PATRON_NOT_FOUND);
+    }
+
+    // Branches holding at least one available copy of the ISBN, in branch order (only holding branches are asked)
+    public List<String> findBranchesWithAvailableCopy(String isbn) {
+        List<String> result = new ArrayList<>();
+        CatalogEntry entry = catalogIndex.get(isbn);
+        if (entry == null) {
+            return result;
+        }
+        for (String branch : branchNames) {
+            if (entry.branches.contains(branch)
+                    && shards.get(branch).getBookItems(isbn).stream().anyMatch(BookItem::isAvailable)) {
+                result.add(branch);
+            }
+        }
+        return result;
+    }
+
+    // --- LibraryService (routed) ---
+
+    @Override
+    public void addBook(Book book, int copies) {
+        addBook(branchFor(book.getIsbn()), book, copies);
+    }
+
+    @Override
+    public void removeBook(String isbn) {
+        CatalogEntry entry = catalogIndex.get(isbn);
+        if (entry != null) {
+            for (String branch : new ArrayList<>(entry.branches)) {
+                removeBook(branch, isbn);
+            }
+        }
+    }
+
+    @Override
+    public void updateBook(String isbn, String newTitle, String newAuthor, Integer newYear) {
+        shards.get(branchFor(isbn)).updateBook(isbn, newTitle, newAuthor, newYear);
+    }
+
+    @Override
+    public Optional<Book> findBookByIsbn(String isbn) {
+        CatalogEntry entry = catalogIndex.get(isbn);
+        return Optional.ofNullable(entry == null ? null : entry.book);
+    }
+
+    @Override
+    public List<Book> searchBooks(String query) {
+        Map<String, Book> merged = new LinkedHashMap<>();
+        for (List<Book> partial : scatter(shard -> shard.searchBooks(query))) {
+            for (Book book : partial) {
+                merged.putIfAbsent(book.getIsbn(), book);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    @Override
+    public BookPage findBooksByPublicationYear(int fromYear, int toYear, Book after, int pageSize) {
+        return mergePages(scatter(shard -> shard.findBooksByPublicationYear(fromYear, toYear, after, pageSize)), pageSize);
+    }
+
+    @Override
+    public BookPage findBooksByAuthor(String author, Book after, int pageSize) {
+        return mergePages(scatter(shard -> shard.findBooksByAuthor(author, after, pageSize)), pageSize);
+    }
+
+    // k-way merge of per-shard pages (same order, same cursor); a book held by several branches appears once
+    private static BookPage mergePages(List<BookPage> pages, int pageSize) {
+        TreeSet<Book> merged = new TreeSet<>(BookIndex.BY_YEAR);
+        boolean more = false;
+        for (BookPage page : pages) {
+            merged.addAll(page.getBooks());
+            more |= page.hasNext();
+        }
+        List<Book> books = new ArrayList<>(Math.min(pageSize, merged.size()));
+        for (Book book : merged) {
+            if (books.size() == pageSize) {
+                more = true;
+                break;
+            }
+            books.add(book);
+        }
+        return new BookPage(books, more && !books.isEmpty() ? books.get(books.size() - 1) : null);
+    }
+
+    @Override
+    public List<BookItem> getBookItems(String isbn) {
+        List<BookItem> items = new ArrayList<>();
+        scatter(shard -> shard.getBookItems(isbn)).forEach(items::addAll);
+        return items;
+    }
+
+    @Override
+    public List<Book> getAllBooks() {
+        List<Book> books = new ArrayList<>(catalogIndex.size());
+        for (CatalogEntry entry : catalogIndex.values()) {
+            books.add(entry.book);
+        }
+        return books;
+    }
+
+    @Override
+    public void addPatron(Patron patron) {
+        addPatron(branchNames.get(Math.floorMod(patron.getId(), branchNames.size())), patron);
+    }
+
+    // Only the home branch holds the patron (branches that lent to it share the same Patron instance)
+    @Override
+    public void updatePatron(int id, String newName, String newContactInfo) {
+        homeShard(id).updatePatron(id, newName, newContactInfo);
+    }
+
+    @Override
+    public Optional<Patron> findPatronById(int id) {
+        return Optional.ofNullable(patrons.get(id));
+    }
+
+    @Override
+    public List<Patron> getAllPatrons() {
+        return new ArrayList<>(patrons.values());
+    }
+
+    // Only branches holding the ISBN are tried: the patron's home branch first, then the others
+    @Override
+    public LoanResult checkout(String isbn, int patronId) {
+        Patron patron = patrons.get(patronId);
+        if (patron == null) {
+            return LoanResult.failure(LibraryServiceImpl.PATRON_NOT_FOUND);
+        }
+        CatalogEntry entry = catalogIndex.get(isbn);
+        LoanResult result = LoanResult.failure(LibraryServiceImpl.OUT_OF_STOCK);
+        if (entry == null) {
+            return result;
+        }
+        String home = homeBranches.get(patronId);
+        if (entry.branches.contains(home)) {
+            result = checkout(home, shards.get(home), isbn, patron);
+            if (result.isSuccess()) {
+                return result;
+            }
+        }
+        for (String branch : entry.branches) {
+            if (!branch.equals(home)) {
+                result = checkout(branch, shards.get(branch), isbn, patron);
+                if (result.isSuccess()) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    // Goes straight to the branch holding the patron's oldest open loan of the ISBN
+    @Override
+    public LoanResult checkin(String isbn, int patronId) {
+        if (!patrons.containsKey(patronId)) {
+            return LoanResult.failure(LibraryServiceImpl.PATRON_NOT_FOUND);
+        }
+        LoanResult result = LoanResult.failure(LibraryServiceImpl.NO_ACTIVE_CHECKOUT);
+        List<String> branches = loanBranches.get(new LibraryServiceImpl.LoanKey(patronId, isbn));
+        if (branches != null) {
+            // Normally the first branch; a concurrent return of the same loan can make it miss
+            for (String branch : branches) {
+                result = checkin(branch, shards.get(branch), isbn, patronId);
+                if (result.isSuccess()) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    // The loan index is updated before the call returns, so a return issued after it finds the loan
+    private LoanResult checkout(String branch, LibraryServiceImpl shard, String isbn, Patron patron) {
+        LoanResult result = shard.checkout(isbn, patron);
+        if (result.isSuccess()) {
+            loanBranches.merge(new LibraryServiceImpl.LoanKey(patron.getId(), isbn),
+                               Collections.singletonList(branch), ShardedLibraryService::concat);
+        }
+        return result;
+    }
+
+    private LoanResult checkin(String branch, LibraryServiceImpl shard, String isbn, int patronId) {
+        LoanResult result = shard.checkin(isbn, patronId);
+        if (result.isSuccess()) {
+            loanBranches.computeIfPresent(new LibraryServiceImpl.LoanKey(patronId, isbn),
+                                          (key, branches) -> without(branches, branch));
+        }
+        return result;
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        List<String> joined = new ArrayList<>(first.size() + second.size());
+        joined.addAll(first);
+        joined.addAll(second);
+        return joined;
+    }
+
+    // Drops the first occurrence; null (remove the entry) once no loan is left
+    private static List<String> without(List<String> branches, String branch) {
+        List<String> rest = new ArrayList<>(branches);
+        rest.remove(branch);
+        return rest.isEmpty() ? null : rest;
+    }
+
+    @Override
+    public List<Transaction> getBorrowedBooks() {
+        List<Transaction> loans = new ArrayList<>();
+        scatter(LibraryServiceImpl::getBorrowedBooks).forEach(loans::addAll);
+        return loans;
+    }
+
+    @Override
+    public List<Transaction> getPatronHistory(int patronId) {
+        // History lives on the shared Patron instance
+        return homeShard(patronId).getPatronHistory(patronId);
+    }
+
+    @Override
+    public List<Book> getMostBorrowedBooks(int limit) {
+        return resolve(PopularityTracker.top(popularity, limit, catalogIndex::containsKey, LocalDate.now()));
+    }
+
+    @Override
+    public List<Book> getMostBorrowedBooks(String author, int limit) {
+        String normalized = BookIndex.normalizeAuthor(author);
+        return resolve(PopularityTracker.top(popularity, limit, isbn -> {
+            CatalogEntry entry = catalogIndex.get(isbn);
+            return entry != null && BookIndex.normalizeAuthor(entry.book.getAuthor()).equals(normalized);
+        }, LocalDate.now()));
+    }
+
+    @Override
+    public List<Book> recommend(String isbn, int limit) {
+        List<Book> books = new ArrayList<>(limit);
+        for (String other : coBorrowIndex.recommend(isbn, limit)) {
+            CatalogEntry entry = catalogIndex.get(other);
+            if (entry != null) {
+                books.add(entry.book);
+            }
+        }
+        return books;
+    }
+
+    // Histories live on the shared Patron instances, so the patron directory covers the library
+    public void rebuildRecommendations() {
+        coBorrowIndex.rebuild(getAllPatrons());
+    }
+
+    private List<Book> resolve(List<PopularityTracker.Entry> entries) {
+        List<Book> books = new ArrayList<>(entries.size());
+        for (PopularityTracker.Entry entry : entries) {
+            CatalogEntry held = catalogIndex.get(entry.getIsbn());
+            if (held != null) {
+                books.add(held.book);
+            }
+        }
+        return books;
+    }
+
+    // All shards publish to one bus, each event tagged with its branch; a patron update is published once, by the home shard
+    @Override
+    public LibraryEventBus.Subscription subscribe(LibraryEventListener listener) {
+        return eventBus.subscribe(listener);
+    }
+
+    // Composes the branches' current states without copying, as of a single instant: every shard monitor is held
+    // (in branch order) while the states are read, so no mutation in any branch is half-visible. The monitors are
+    // held only for N volatile reads; no operation holds two shard monitors, so this cannot deadlock.
+    @Override
+    public LibrarySnapshot getSnapshot() {
+        List<LibraryServiceImpl> all = new ArrayList<>(shards.values());
+        LibraryState[] parts = new LibraryState[all.size()];
+        captureStates(all, 0, parts);
+        return new LibrarySnapshot(Arrays.asList(parts));
+    }
+
+    private static void captureStates(List<LibraryServiceImpl> all, int locked, LibraryState[] parts) {
+        if (locked == all.size()) {
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = all.get(i).getState();
+            }
+            return;
+        }
+        synchronized (all.get(locked)) {
+            captureStates(all, locked + 1, parts);
+        }
+    }
+
+    // --- Branch view ---
+
+    private final class BranchView implements LibraryService {
+        private final String branch;
+        private final LibraryServiceImpl shard;
+
+        BranchView(String branch, LibraryServiceImpl shard) {
+            this.branch = branch;
+            this.shard = shard;
+        }
+
+        // Branch-local catalog and inventory
+
+        @Override
+        public void addBook(Book book, int copies) { ShardedLibraryService.this.addBook(branch, book, copies); }
+
+        @Override
+        public void removeBook(String isbn) { ShardedLibraryService.this.removeBook(branch, isbn); }
+
+        @Override
+        public void updateBook(String isbn, String newTitle, String newAuthor, Integer newYear) {
+            shard.updateBook(isbn, newTitle, newAuthor, newYear);
+        }
+
+        @Override
+        public Optional<Book> findBookByIsbn(String isbn) { return shard.findBookByIsbn(isbn); }
+
+        @Override
+        public List<Book> searchBooks(String query) { return shard.searchBooks(query); }
+
+        @Override
+        public BookPage findBooksByPublicationYear(int fromYear, int toYear, Book after, int pageSize) {
+            return shard.findBooksByPublicationYear(fromYear, toYear, after, pageSize);
+        }
+
+        @Override
+        public BookPage findBooksByAuthor(String author, Book after, int pageSize) {
+            return shard.findBooksByAuthor(author, after, pageSize);
+        }
+
+        @Override
+        public List<BookItem> getBookItems(String isbn) { return shard.getBookItems(isbn); }
+
+        @Override
+        public List<Book> getAllBooks() { return shard.getAllBooks(); }
+
+        // Lending at this branch
+
+        @Override
+        public LoanResult checkout(String isbn, int patronId) {
+            return ShardedLibraryService.this.checkout(branch, isbn, patronId);
+        }
+
+        @Override
+        public LoanResult checkin(String isbn, int patronId) {
+            return ShardedLibraryService.this.checkin(branch, isbn, patronId);
+        }
+
+        @Override
+        public List<Transaction> getBorrowedBooks() { return shard.getBorrowedBooks(); }
+
+        @Override
+        public LibrarySnapshot getSnapshot() { return shard.getSnapshot(); }
+
+        // Patrons are library-wide; new patrons get this branch as home
+
+        @Override
+        public void addPatron(Patron patron) { ShardedLibraryService.this.addPatron(branch, patron); }
+
+        @Override
+        public void updatePatron(int id, String newName, String newContactInfo) {
+            ShardedLibraryService.this.updatePatron(id, newName, newContactInfo);
+        }
+
+        @Override
+        public Optional<Patron> findPatronById(int id) { return ShardedLibraryService.this.findPatronById(id); }
+
+        @Override
+        public List<Patron> getAllPatrons() { return ShardedLibraryService.this.getAllPatrons(); }
+
+        @Override
+        public List<Transaction> getPatronHistory(int patronId) {
+            return ShardedLibraryService.this.getPatronHistory(patronId);
+        }
+
+        // Popularity, recommendations and events are library-wide
+
+        @Override
+        public List<Book> getMostBorrowedBooks(int limit) { return ShardedLibraryService.this.getMostBorrowedBooks(limit); }
+
+        @Override
+        public List<Book> getMostBorrowedBooks(String author, int limit) {
+            return ShardedLibraryService.this.getMostBorrowedBooks(author, limit);
+        }
+
+        @Override
+        public List<Book> recommend(String isbn, int limit) { return ShardedLibraryService.this.recommend(isbn, limit); }
+
+        @Override
+        public LibraryEventBus.Subscription subscribe(LibraryEventListener listener) {
+            return ShardedLibraryService.this.subscribe(listener);
+        }
+    }
+
+    private static final class CatalogEntry {
+        final Book book;
+        final Set<String> branches = ConcurrentHashMap.newKeySet();
+
+        CatalogEntry(Book book) {
+            this.book = book;
+        }
+    }
+
+    // --- Routing helpers ---
+
+    private LibraryServiceImpl shard(String branch) {
+        LibraryServiceImpl shard = shards.get(branch);
+        if (shard == null) {
+            throw new IllegalArgumentException("Unknown branch: " + branch);
+        }
+        return shard;
+    }
+
+    private String branchFor(String isbn) {
+        return branchNames.get(Math.floorMod(isbn.hashCode(), branchNames.size()));
+    }
+
+    private LibraryServiceImpl homeShard(int patronId) {
+        String home = homeBranches.get(patronId);
+        return shards.get(home != null ? home : branchNames.get(0));
+    }
+
+    // Runs the call on every shard in parallel; results are in branch order
+    private <T> List<T> scatter(Function<LibraryServiceImpl, T> call) {
+        if (shards.size() == 1) {
+            return Collections.singletonList(call.apply(shards.values().iterator().next()));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (LibraryServiceImpl shard : shards.values()) {
+            futures.add(CompletableFuture.supplyAsync(() -> call.apply(shard), executor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+}